@@ -1,8 +1,11 @@
 package com.onevizion.scmdb;
 
 import com.onevizion.scmdb.vo.DbCnnCredentials;
+import com.onevizion.scmdb.vo.JobSuspensionMode;
+import com.onevizion.scmdb.vo.LockPolicy;
 import com.onevizion.scmdb.vo.RollbackMode;
 import com.onevizion.scmdb.vo.SchemaType;
+import com.onevizion.scmdb.vo.ScriptTextCache;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
 import joptsimple.OptionSpec;
@@ -29,10 +32,27 @@ public class AppArguments {
     private boolean ignoreErrors = false;
     private boolean forceDisableJobs = false;
     private boolean backport = false;
+    private boolean journalCache = true;
+    private boolean scriptEcho = true;
+    private boolean jdbcFastPath = true;
+    private boolean batchInserts = false;
+    private boolean resume = false;
     private RollbackMode rollbackMode;
+    private JobSuspensionMode jobSuspensionMode;
+    private LockPolicy lockPolicy;
+    private int lockTimeoutSeconds;
     private String ghToken;
+    private int outputRetentionDays;
+    private int slowScriptThresholdSeconds;
+    private int maxTextCacheMb;
+    private int progressIntervalSeconds;
+    private File jfrFile;
 
     private final static String DDL_DIRECTORY_NAME = "ddl";
+    private final static int DEFAULT_OUTPUT_RETENTION_DAYS = 90;
+    private final static int DEFAULT_SLOW_SCRIPT_THRESHOLD_SECONDS = 300;
+    private final static int DEFAULT_PROGRESS_INTERVAL_SECONDS = 30;
+    private final static int DEFAULT_LOCK_TIMEOUT_SECONDS = 300;
 
     void parse(String[] args, boolean requireScriptsDirectory) {
         OptionParser parser = new OptionParser();
@@ -49,13 +69,46 @@ public class AppArguments {
         OptionSpec noColorOption = parser.acceptsAll(asList("n", "no-color"));
         OptionSpec omitChangedOption = parser.acceptsAll(asList("o", "omit-changed"));
         OptionSpec ignoreErrorsOption = parser.acceptsAll(asList("i", "ignore-errors"));
-        OptionSpec forceDisableJobsOption = parser.accepts("force-disable-jobs");
+        OptionSpec<JobSuspensionMode> forceDisableJobsOption = parser.accepts("force-disable-jobs")
+                                                                     .withOptionalArg()
+                                                                     .ofType(JobSuspensionMode.class)
+                                                                     .defaultsTo(JobSuspensionMode.ALL);
         OptionSpec backportOption = parser.accepts("backport");
+        OptionSpec noJournalCacheOption = parser.accepts("no-journal-cache");
+        OptionSpec noScriptEchoOption = parser.accepts("no-script-echo");
+        OptionSpec noJdbcFastPathOption = parser.accepts("no-jdbc-fast-path");
+        OptionSpec batchInsertsOption = parser.accepts("batch-inserts");
+        OptionSpec resumeOption = parser.accepts("resume");
         OptionSpec<RollbackMode> rollbackMode = parser.accepts("rollback-mode")
                                                       .withRequiredArg()
                                                       .ofType(RollbackMode.class)
                                                       .defaultsTo(RollbackMode.ASK);
+        OptionSpec<LockPolicy> lockPolicyOption = parser.accepts("lock-policy")
+                                                        .withRequiredArg()
+                                                        .ofType(LockPolicy.class)
+                                                        .defaultsTo(LockPolicy.NONE);
+        OptionSpec<Integer> lockTimeoutOption = parser.accepts("lock-timeout")
+                                                      .withRequiredArg()
+                                                      .ofType(Integer.class)
+                                                      .defaultsTo(DEFAULT_LOCK_TIMEOUT_SECONDS);
         OptionSpec<String> ghTokenOption = parser.accepts("gh-token").withRequiredArg().ofType(String.class);
+        OptionSpec<Integer> outputRetentionDaysOption = parser.accepts("output-retention-days")
+                                                              .withRequiredArg()
+                                                              .ofType(Integer.class)
+                                                              .defaultsTo(DEFAULT_OUTPUT_RETENTION_DAYS);
+        OptionSpec<Integer> slowScriptThresholdOption = parser.accepts("slow-script-threshold")
+                                                              .withRequiredArg()
+                                                              .ofType(Integer.class)
+                                                              .defaultsTo(DEFAULT_SLOW_SCRIPT_THRESHOLD_SECONDS);
+        OptionSpec<Integer> maxTextCacheOption = parser.accepts("max-text-cache")
+                                                       .withRequiredArg()
+                                                       .ofType(Integer.class)
+                                                       .defaultsTo(ScriptTextCache.DEFAULT_MAX_SIZE_MB);
+        OptionSpec<Integer> progressIntervalOption = parser.accepts("progress-interval")
+                                                           .withRequiredArg()
+                                                           .ofType(Integer.class)
+                                                           .defaultsTo(DEFAULT_PROGRESS_INTERVAL_SECONDS);
+        OptionSpec<File> jfrOption = parser.accepts("jfr").withRequiredArg().ofType(File.class);
 
         OptionSet options = parser.parse(args);
 
@@ -104,6 +157,19 @@ public class AppArguments {
         omitChanged = options.has(omitChangedOption);
         ignoreErrors = options.has(ignoreErrorsOption);
         forceDisableJobs = options.has(forceDisableJobsOption);
+        jobSuspensionMode = forceDisableJobs ? options.valueOf(forceDisableJobsOption) : null;
+        journalCache = !options.has(noJournalCacheOption);
+        scriptEcho = !options.has(noScriptEchoOption);
+        jdbcFastPath = !options.has(noJdbcFastPathOption);
+        batchInserts = options.has(batchInsertsOption);
+        if (batchInserts && !jdbcFastPath) {
+            throw new IllegalArgumentException("--batch-inserts can't be combined with --no-jdbc-fast-path.");
+        }
+        resume = options.has(resumeOption);
+        if (resume && (!executeScripts || ignoreErrors || !jdbcFastPath)) {
+            throw new IllegalArgumentException("--resume requires --exec and can't be combined with --ignore-errors" +
+                    " or --no-jdbc-fast-path.");
+        }
 
         backport = options.has(backportOption);
         if (backport) {
@@ -119,6 +185,22 @@ public class AppArguments {
         }
 
         this.rollbackMode = options.valueOf(rollbackMode);
+        this.lockPolicy = options.valueOf(lockPolicyOption);
+        this.lockTimeoutSeconds = options.valueOf(lockTimeoutOption);
+        if (lockTimeoutSeconds < 0) {
+            throw new IllegalArgumentException("--lock-timeout can't be negative.");
+        }
+        this.outputRetentionDays = options.valueOf(outputRetentionDaysOption);
+        this.slowScriptThresholdSeconds = options.valueOf(slowScriptThresholdOption);
+        this.maxTextCacheMb = options.valueOf(maxTextCacheOption);
+        if (maxTextCacheMb < 0) {
+            throw new IllegalArgumentException("--max-text-cache can't be negative.");
+        }
+        this.progressIntervalSeconds = options.valueOf(progressIntervalOption);
+        if (progressIntervalSeconds < 0) {
+            throw new IllegalArgumentException("--progress-interval can't be negative.");
+        }
+        this.jfrFile = options.valueOf(jfrOption);
     }
 
     public void fillDataSourceCredentials(PoolDataSource poolDataSource, SchemaType schemaType) {
@@ -194,6 +276,33 @@ public class AppArguments {
         return forceDisableJobs;
     }
 
+    /**
+     * @return null if jobs aren't disabled
+     */
+    public JobSuspensionMode getJobSuspensionMode() {
+        return jobSuspensionMode;
+    }
+
+    public boolean isJournalCache() {
+        return journalCache;
+    }
+
+    public boolean isScriptEcho() {
+        return scriptEcho;
+    }
+
+    public boolean isJdbcFastPath() {
+        return jdbcFastPath;
+    }
+
+    public boolean isBatchInserts() {
+        return batchInserts;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
     public boolean isBackport() {
         return backport;
     }
@@ -202,8 +311,36 @@ public class AppArguments {
         return rollbackMode;
     }
 
+    public LockPolicy getLockPolicy() {
+        return lockPolicy;
+    }
+
+    public int getLockTimeoutSeconds() {
+        return lockTimeoutSeconds;
+    }
+
     public String getGhToken() {
         return ghToken;
     }
 
+    public int getOutputRetentionDays() {
+        return outputRetentionDays;
+    }
+
+    public int getSlowScriptThresholdSeconds() {
+        return slowScriptThresholdSeconds;
+    }
+
+    public int getMaxTextCacheMb() {
+        return maxTextCacheMb;
+    }
+
+    public int getProgressIntervalSeconds() {
+        return progressIntervalSeconds;
+    }
+
+    public File getJfrFile() {
+        return jfrFile;
+    }
+
 }
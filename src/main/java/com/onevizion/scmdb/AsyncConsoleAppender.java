@@ -0,0 +1,173 @@
+package com.onevizion.scmdb;
+
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.slf4j.Marker;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Console appender which encodes events on the caller thread with the encoder precompiled for the event marker
+ * and writes them in batches on a background thread. Queue is bounded, callers block when the console can't keep up.
+ * Raw output (e.g. of the executed scripts) goes through the same queue, so it keeps its order with the log messages.
+ */
+class AsyncConsoleAppender extends AppenderBase<ILoggingEvent> {
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int MAX_BATCH_SIZE = 256;
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+
+    private final PatternLayoutEncoder defaultEncoder;
+    private final Map<Marker, PatternLayoutEncoder> encoderByMarker;
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final OutputStream console = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024);
+    private final OutputStream rawOutputStream = new RawOutputStream();
+    private Thread worker;
+
+    AsyncConsoleAppender(PatternLayoutEncoder defaultEncoder, Map<Marker, PatternLayoutEncoder> encoderByMarker) {
+        this.defaultEncoder = defaultEncoder;
+        this.encoderByMarker = encoderByMarker;
+    }
+
+    @Override
+    public void start() {
+        worker = new Thread(this::writeBatches, "scmdb-console-writer");
+        worker.setDaemon(true);
+        worker.start();
+        super.start();
+    }
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        enqueue(getEncoder(event).encode(event));
+    }
+
+    private PatternLayoutEncoder getEncoder(ILoggingEvent event) {
+        List<Marker> markers = event.getMarkerList();
+        if (markers != null) {
+            for (Marker marker : markers) {
+                PatternLayoutEncoder encoder = encoderByMarker.get(marker);
+                if (encoder != null) {
+                    return encoder;
+                }
+            }
+        }
+        return defaultEncoder;
+    }
+
+    /**
+     * Stream writing to the console in order with the log messages
+     */
+    OutputStream getRawOutputStream() {
+        return rawOutputStream;
+    }
+
+    private void enqueue(byte[] bytes) {
+        if (!isStarted()) {
+            writeDirectly(bytes);
+            return;
+        }
+        enqueued.incrementAndGet();
+        try {
+            queue.put(bytes);
+        } catch (InterruptedException e) {
+            enqueued.decrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeBatches() {
+        List<byte[]> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (isStarted() || !queue.isEmpty()) {
+            try {
+                byte[] first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                for (byte[] bytes : batch) {
+                    console.write(bytes);
+                }
+                console.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                addError("Can't write to console", e);
+            } finally {
+                written.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+    }
+
+    private synchronized void writeDirectly(byte[] bytes) {
+        try {
+            console.write(bytes);
+            console.flush();
+        } catch (IOException e) {
+            addError("Can't write to console", e);
+        }
+    }
+
+    /**
+     * Waits until everything enqueued so far is written to the console
+     */
+    void flush() {
+        long target = enqueued.get();
+        while (written.get() < target && worker.isAlive()) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Stops accepting events and drains the queue
+     */
+    @Override
+    public void stop() {
+        if (!isStarted()) {
+            return;
+        }
+        super.stop();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(STOP_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes;
+        while ((bytes = queue.poll()) != null) {
+            writeDirectly(bytes);
+            written.incrementAndGet();
+        }
+    }
+
+    private class RawOutputStream extends OutputStream {
+        @Override
+        public void write(int b) {
+            enqueue(new byte[]{(byte) b});
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            if (len > 0) {
+                enqueue(Arrays.copyOfRange(b, off, off + len));
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.onevizion.scmdb;
 
+import com.onevizion.scmdb.vo.BackportEvent;
 import com.onevizion.scmdb.vo.BackportResult;
 import org.apache.commons.lang3.StringUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -7,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.util.function.Consumer;
 
 public class BackportRunner {
 
@@ -18,7 +20,13 @@ public class BackportRunner {
     @Autowired
     private ColorLogger logger;
 
-    public BackportResult run() {
+    /**
+     * Runs the pipeline, its events are passed to the listener as soon as they're printed, while the pipeline
+     * is still running.
+     *
+     * @param listener receives WRITTEN and DELETED events
+     */
+    public BackportResult run(Consumer<BackportEvent> listener) {
         int prNumber = promptForPrNumber();
 
         File tempScript = extractPythonScript();
@@ -28,28 +36,47 @@ public class BackportRunner {
             StringBuilder stderrBuilder = new StringBuilder();
             Thread stderrThread = getThread(process, stderrBuilder);
 
-            String stdout;
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    sb.append(line).append(System.lineSeparator());
+            BackportResult result = null;
+            int exitCode;
+            boolean completed = false;
+            try {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        BackportEvent event = parseEvent(line);
+                        if (event == null) {
+                            continue;
+                        }
+                        if (event.getType() == BackportEvent.Type.RESULT) {
+                            result = event.getResult();
+                        } else {
+                            listener.accept(event);
+                        }
+                    }
                 }
-                stdout = sb.toString();
-            }
 
-            int exitCode = process.waitFor();
-            stderrThread.join();
+                exitCode = process.waitFor();
+                stderrThread.join();
+                completed = true;
+            } finally {
+                if (!completed) {
+                    // the pipeline mustn't keep changing the repository after the files it writes stop being handled
+                    process.destroy();
+                }
+            }
 
             logger.debug("Backport script exited with code: {}", exitCode);
 
-            if (stdout.isEmpty()) {
+            if (result == null) {
                 String stderr = stderrBuilder.toString().trim();
                 String detail = stderr.isEmpty() ? "" : "\nScript stderr:\n" + stderr;
-                throw new RuntimeException("Backport script produced no output. Exit code: " + exitCode + detail);
+                throw new RuntimeException("Backport script produced no result. Exit code: " + exitCode + detail);
             }
 
-            return BackportResult.fromJson(stdout);
+            return result;
         } catch (IOException | InterruptedException e) {
             throw new RuntimeException("Failed to execute backport script: " + e.getMessage(), e);
         } finally {
@@ -57,6 +84,19 @@ public class BackportRunner {
         }
     }
 
+    /**
+     * Parses a stdout line of the pipeline, lines which aren't events are logged and skipped
+     */
+    private BackportEvent parseEvent(String line) {
+        try {
+            return BackportEvent.fromJson(line);
+        } catch (RuntimeException e) {
+            logger.warn("Skipped backport script output which isn't an event: {}", ColorLogger.Color.YELLOW, line);
+            logger.debug(e.getMessage());
+            return null;
+        }
+    }
+
     private @NonNull Process getProcess(File tempScript, int prNumber) throws IOException {
         File dbPath = appArguments.getScriptsDirectory().getParentFile();
 
@@ -85,6 +125,7 @@ public class BackportRunner {
     }
 
     private int promptForPrNumber() {
+        logger.flush();
         System.out.print("Enter PR number: ");
         System.out.flush();
         BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
@@ -0,0 +1,256 @@
+package com.onevizion.scmdb;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Single-row INSERT ... VALUES statement with its literals extracted into bind parameters.
+ * Consecutive inserts with the same template can be executed as one JDBC batch.
+ * String literals and NULL are extracted when they are elements of the values list or arguments of the functions
+ * called there (e.g. of to_date), numeric literals only when they are elements of the values list, so precision
+ * and length arguments stay in the text. Literals of other expressions keep their semantics (e.g. blank-padded
+ * comparison with CHAR) and stay in the text, inserts with subqueries in the values list aren't batched.
+ */
+final class BatchableInsert {
+    private final SqlStatement statement;
+    private final String template;
+    private final List<Object> values;
+
+    private BatchableInsert(SqlStatement statement, String template, List<Object> values) {
+        this.statement = statement;
+        this.template = template;
+        this.values = values;
+    }
+
+    SqlStatement getStatement() {
+        return statement;
+    }
+
+    /**
+     * Statement text with bind parameters in place of the literals, inserts with equal templates have the same shape
+     */
+    String getTemplate() {
+        return template;
+    }
+
+    void bind(PreparedStatement preparedStatement) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value == null) {
+                preparedStatement.setNull(i + 1, Types.VARCHAR);
+            } else if (value instanceof BigDecimal number) {
+                preparedStatement.setBigDecimal(i + 1, number);
+            } else {
+                preparedStatement.setString(i + 1, (String) value);
+            }
+        }
+    }
+
+    /**
+     * Consecutive inserts of the same shape starting at the given statement, empty if it isn't a batchable insert
+     */
+    static List<BatchableInsert> findRun(List<SqlStatement> statements, int from) {
+        List<BatchableInsert> run = new ArrayList<>();
+        for (int i = from; i < statements.size(); i++) {
+            BatchableInsert insert = parse(statements.get(i));
+            if (insert == null || (!run.isEmpty() && !run.get(0).template.equals(insert.template))) {
+                break;
+            }
+            run.add(insert);
+        }
+        return run;
+    }
+
+    /**
+     * @return null if the statement isn't a single-row insert with literal values or its text is too complex to rewrite
+     */
+    static BatchableInsert parse(SqlStatement statement) {
+        List<String> keywords = statement.getKeywords();
+        if (statement.isPlsql() || keywords.size() < 2 || !keywords.get(0).equals("insert")
+                || !keywords.get(1).equals("into")) {
+            return null;
+        }
+        String sql = statement.getSql();
+        StringBuilder template = new StringBuilder(sql.length());
+        List<Object> values = new ArrayList<>();
+        boolean inValues = false;
+        boolean valuesClosed = false;
+        boolean afterWord = false;
+        // for each open parenthesis: whether it's a function call
+        Deque<Boolean> parens = new ArrayDeque<>();
+        // parentheses inside the values list which aren't function calls
+        int nestedExpressions = 0;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+            if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                template.append(' ');
+                continue;
+            }
+            if (valuesClosed || c == ':' || c == '?' || (c == '-' && next == '-') || (c == '/' && next == '*')) {
+                // more than one row, bind variables or comments
+                return null;
+            }
+            if (c == '\'' && inValues && nestedExpressions > 0) {
+                // kept in the text as is, typed and q-quoted literals aren't tracked
+                int end = afterWord ? -1 : skipQuote(sql, i);
+                if (end < 0) {
+                    return null;
+                }
+                template.append(sql, i, end);
+                i = end;
+                afterWord = false;
+            } else if (c == '\'') {
+                if (!inValues || afterWord) {
+                    // typed literals (date '...', n'...') can't be bound
+                    return null;
+                }
+                StringBuilder value = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        return null;
+                    }
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            value.append('\'');
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    value.append(sql.charAt(i++));
+                }
+                template.append('?');
+                values.add(value.toString());
+                afterWord = false;
+            } else if (c == '"') {
+                int end = sql.indexOf('"', i + 1);
+                if (end < 0) {
+                    return null;
+                }
+                template.append(sql, i, end + 1);
+                i = end + 1;
+                afterWord = true;
+            } else if (Character.isDigit(c) || (c == '.' && Character.isDigit(next))) {
+                int end = scanNumber(sql, i);
+                if (end < length && isWordChar(sql.charAt(end))) {
+                    // binary_float/binary_double literals
+                    return null;
+                }
+                if (inValues && parens.size() == 1) {
+                    template.append('?');
+                    values.add(new BigDecimal(sql.substring(i, end)));
+                } else {
+                    template.append(sql, i, end);
+                }
+                i = end;
+                afterWord = false;
+            } else if (isWordChar(c)) {
+                int end = i;
+                while (end < length && isWordChar(sql.charAt(end))) {
+                    end++;
+                }
+                String word = sql.substring(i, end);
+                if (parens.isEmpty() && word.equalsIgnoreCase("values")) {
+                    inValues = true;
+                    template.append(word);
+                } else if (inValues && word.equalsIgnoreCase("select")) {
+                    // binding would change the semantics and the plan of the subquery
+                    return null;
+                } else if (inValues && nestedExpressions == 0 && word.equalsIgnoreCase("null")) {
+                    template.append('?');
+                    values.add(null);
+                } else {
+                    template.append(word);
+                }
+                i = end;
+                afterWord = true;
+            } else {
+                if (c == '(') {
+                    parens.push(afterWord);
+                    if (inValues && parens.size() > 1 && !afterWord) {
+                        nestedExpressions++;
+                    }
+                } else if (c == ')') {
+                    if (parens.isEmpty()) {
+                        return null;
+                    }
+                    boolean functionCall = parens.pop();
+                    if (inValues && !parens.isEmpty() && !functionCall) {
+                        nestedExpressions--;
+                    }
+                    valuesClosed = inValues && parens.isEmpty();
+                }
+                template.append(c);
+                i++;
+                afterWord = false;
+            }
+        }
+        if (!valuesClosed || values.isEmpty()) {
+            return null;
+        }
+        return new BatchableInsert(statement, template.toString().strip(), values);
+    }
+
+    /**
+     * @return index following the string literal starting at the given index, -1 if it isn't closed
+     */
+    private static int skipQuote(String sql, int from) {
+        int i = from + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    private static int scanNumber(String sql, int from) {
+        int i = from;
+        int length = sql.length();
+        while (i < length && Character.isDigit(sql.charAt(i))) {
+            i++;
+        }
+        if (i < length && sql.charAt(i) == '.') {
+            i++;
+            while (i < length && Character.isDigit(sql.charAt(i))) {
+                i++;
+            }
+        }
+        if (i + 1 < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int exponent = i + 1;
+            if (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-') {
+                exponent++;
+            }
+            if (exponent < length && Character.isDigit(sql.charAt(exponent))) {
+                i = exponent;
+                while (i < length && Character.isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+}
@@ -0,0 +1,112 @@
+package com.onevizion.scmdb;
+
+import com.onevizion.scmdb.vo.ScriptDigest;
+import com.onevizion.scmdb.vo.SqlScript;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.util.ResourceUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Extracts scripts bundled in the jar to a directory which is reused across runs.
+ * Directory is keyed by the jar checksum (path, size and modification time), entry file is keyed by the script
+ * hash and name, so an entry is written once per jar version and never has to be deleted on exit.
+ * Directories of other jar versions which weren't used for {@link #STALE_CACHE_DAYS} days are removed.
+ */
+public class ClasspathScriptCache {
+    private static final String CACHE_DIR_NAME = "scmdb_script_cache";
+    private static final String NO_JAR_KEY = "no_jar";
+    private static final int HASH_PREFIX_LENGTH = 12;
+    private static final long STALE_CACHE_DAYS = 7;
+
+    private File cacheDir;
+
+    public synchronized File getScriptFile(SqlScript script) {
+        if (cacheDir == null) {
+            cacheDir = initCacheDir(script.getResource());
+        }
+
+        script.ensureContentLoaded();
+        String hashPrefix = StringUtils.left(ScriptDigest.getHex(script.getFileHash()), HASH_PREFIX_LENGTH);
+        File scriptFile = new File(cacheDir, hashPrefix + "_" + script.getName());
+        if (scriptFile.isFile()) {
+            return scriptFile;
+        }
+
+        extract(script.getResource(), scriptFile);
+        return scriptFile;
+    }
+
+    private void extract(Resource resource, File scriptFile) {
+        Path tmpFile = null;
+        try (InputStream inputStream = resource.getInputStream()) {
+            tmpFile = Files.createTempFile(cacheDir.toPath(), scriptFile.getName(), ".part");
+            FileUtils.copyInputStreamToFile(inputStream, tmpFile.toFile());
+            try {
+                Files.move(tmpFile, scriptFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, scriptFile.toPath());
+            }
+        } catch (FileAlreadyExistsException e) {
+            // extracted by a concurrent run
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to extract resource [" + resource + "] to [" + scriptFile + "]", e);
+        } finally {
+            if (tmpFile != null) {
+                tmpFile.toFile().delete();
+            }
+        }
+    }
+
+    private File initCacheDir(Resource resource) {
+        File rootDir = new File(SystemUtils.getJavaIoTmpDir(), CACHE_DIR_NAME);
+        File dir = new File(rootDir, getJarKey(resource));
+        try {
+            FileUtils.forceMkdir(dir);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create script cache directory [" + dir + "]", e);
+        }
+        dir.setLastModified(System.currentTimeMillis());
+        removeStaleDirs(rootDir, dir);
+        return dir;
+    }
+
+    private String getJarKey(Resource resource) {
+        try {
+            URL url = resource.getURL();
+            if (!ResourceUtils.isJarURL(url)) {
+                return NO_JAR_KEY;
+            }
+            File jarFile = ResourceUtils.getFile(ResourceUtils.extractArchiveURL(url));
+            return DigestUtils.sha1Hex(jarFile.getAbsolutePath() + "|" + jarFile.length() + "|" + jarFile.lastModified());
+        } catch (IOException e) {
+            return NO_JAR_KEY;
+        }
+    }
+
+    private void removeStaleDirs(File rootDir, File currentDir) {
+        File[] dirs = rootDir.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return;
+        }
+        long staleBefore = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(STALE_CACHE_DAYS);
+        for (File dir : dirs) {
+            if (!dir.equals(currentDir) && dir.lastModified() < staleBefore) {
+                FileUtils.deleteQuietly(dir);
+            }
+        }
+    }
+}
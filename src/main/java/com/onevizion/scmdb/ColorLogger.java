@@ -3,15 +3,19 @@ package com.onevizion.scmdb;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
-import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.ConsoleAppender;
 import org.slf4j.LoggerFactory;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
 
 public class ColorLogger {
     private Logger logger = (Logger) LoggerFactory.getLogger("STDOUT");
-    private PatternLayoutEncoder encoder;
+    private AsyncConsoleAppender appender;
 
     @Autowired
     private AppArguments appArguments;
@@ -20,22 +24,32 @@ public class ColorLogger {
         LoggerContext loggerContext = logger.getLoggerContext();
         loggerContext.reset();
 
-        encoder = new PatternLayoutEncoder();
-        encoder.setContext(loggerContext);
-        encoder.setPattern("%msg%n");
-        encoder.start();
+        Map<Marker, PatternLayoutEncoder> encoderByMarker = new HashMap<>();
+        for (Color color : Color.values()) {
+            encoderByMarker.put(color.getMarker(),
+                    createEncoder(loggerContext, "%" + color.getColor() + "(%message%n)"));
+        }
 
-        ConsoleAppender<ILoggingEvent> appender = new ConsoleAppender<>();
+        appender = new AsyncConsoleAppender(createEncoder(loggerContext, "%msg%n"), encoderByMarker);
         appender.setContext(loggerContext);
-        appender.setEncoder(encoder);
         appender.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(appender::stop, "scmdb-console-flush"));
 
         logger.addAppender(appender);
     }
 
+    private static PatternLayoutEncoder createEncoder(LoggerContext loggerContext, String pattern) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern(pattern);
+        encoder.start();
+        return encoder;
+    }
+
     public void info(String msg, Color color, Object... argArray) {
-        setColor(color);
-        logger.info(msg, argArray);
+        if (logger.isInfoEnabled()) {
+            logger.info(getMarker(color), msg, argArray);
+        }
     }
 
     public void info(String msg, Object... argArray) {
@@ -43,26 +57,39 @@ public class ColorLogger {
     }
 
     public void warn(String msg, Color color, Object... argArray) {
-        setColor(color);
-        logger.warn(msg, argArray);
+        if (logger.isWarnEnabled()) {
+            logger.warn(getMarker(color), msg, argArray);
+        }
     }
 
     public void error(String msg, Object... argArray) {
-        setColor(Color.RED);
-        logger.error(msg, argArray);
+        if (logger.isErrorEnabled()) {
+            logger.error(getMarker(Color.RED), msg, argArray);
+        }
     }
 
-    private void setColor(Color color) {
-        if (appArguments.isUseColorLogging()) {
-            encoder.stop();
-            encoder.setPattern("%" + color.getColor() + "(%message%n)");
-            encoder.start();
-        }
+    private Marker getMarker(Color color) {
+        return appArguments.isUseColorLogging() ? color.getMarker() : null;
     }
 
     public void debug(String msg, Object... argArray) {
-        setColor(Color.WHITE);
-        logger.debug(msg, argArray);
+        if (logger.isDebugEnabled()) {
+            logger.debug(getMarker(Color.WHITE), msg, argArray);
+        }
+    }
+
+    /**
+     * Stream printing to the console in order with the log messages
+     */
+    public OutputStream getConsoleOutputStream() {
+        return appender.getRawOutputStream();
+    }
+
+    /**
+     * Waits until all messages logged so far are printed, should be called before writing to {@link System#out}
+     */
+    public void flush() {
+        appender.flush();
     }
 
     public enum Color {
@@ -73,13 +100,19 @@ public class ColorLogger {
         GREEN("green");
 
         private String color;
+        private final Marker marker;
 
         Color(String color) {
             this.color = color;
+            this.marker = MarkerFactory.getDetachedMarker("COLOR_" + name());
         }
 
         public String getColor() {
             return color;
         }
+
+        public Marker getMarker() {
+            return marker;
+        }
     }
 }
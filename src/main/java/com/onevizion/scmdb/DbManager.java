@@ -3,23 +3,34 @@ package com.onevizion.scmdb;
 import com.onevizion.scmdb.exception.ScmdbException;
 import com.onevizion.scmdb.exception.ScriptExecException;
 import com.onevizion.scmdb.facade.DbScriptFacade;
+import com.onevizion.scmdb.facade.JobControlFacade;
+import com.onevizion.scmdb.facade.ScriptCheckpointFacade;
+import com.onevizion.scmdb.facade.ScriptRunFacade;
+import com.onevizion.scmdb.jfr.CompilePhaseEvent;
 import com.onevizion.scmdb.vo.*;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.text.MessageFormat;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import static com.onevizion.scmdb.ColorLogger.Color.CYAN;
 import static com.onevizion.scmdb.ColorLogger.Color.GREEN;
+import static com.onevizion.scmdb.ColorLogger.Color.YELLOW;
 import static com.onevizion.scmdb.Scmdb.EXIT_CODE_SUCCESS;
 import static com.onevizion.scmdb.vo.SchemaType.OWNER;
 import static com.onevizion.scmdb.vo.ScriptType.COMMIT;
 import static com.onevizion.scmdb.vo.ScriptType.ROLLBACK;
+import static org.apache.commons.lang3.time.DurationFormatUtils.formatDurationHMS;
 
 public class DbManager {
     private static final String SCRIPT_EXECUTION_ERROR_MESSAGE = "Fix and execute manually script [{0}] and then run SCMDB again to execute other scripts.";
@@ -27,11 +38,20 @@ public class DbManager {
     private static final String NO_SCRIPTS_TO_EXEC_MSG = "No scripts to execute in [{}]:";
     private static final String SCRIPTS_TO_EXEC_MSG = "\nScripts to be executed in [{}]:";
     private static final String ROLLBACKS_TO_SKIP_MSG = "\nRollbacks skipped in [{}]:";
-    private static final String SCRIPT_NUMBERING_IS_MORE_THAN_TWO_DIGITS_REGEX = "^\\d{3,}_.*";
+    private static final String RESUME_MESSAGE = "Checkpoint saved. After fixing the data or the failed statement run SCMDB with --resume to continue script [{}] from statement {}.";
 
     @Autowired
     private DbScriptFacade scriptsFacade;
 
+    @Autowired
+    private ScriptRunFacade scriptRunFacade;
+
+    @Autowired
+    private ScriptCheckpointFacade scriptCheckpointFacade;
+
+    @Autowired
+    private JobControlFacade jobControlFacade;
+
     @Autowired
     private DdlGenerator ddlGenerator;
 
@@ -52,10 +72,21 @@ public class DbManager {
         scriptExecutor.showInvalidObjects();
 
         if (appArguments.isForceDisableJobs() && !appArguments.isGenDdl()) {
-            scriptExecutor.disableJobs();
+            jobControlFacade.start();
         }
-        
+
+        CompletableFuture<Integer> outputRetention = null;
         try {
+            if (!scriptsFacade.isOutputTableExist()) {
+                scriptExecutor.createDbScriptOutputTable();
+            }
+            if (!scriptRunFacade.isRunTableExist()) {
+                scriptExecutor.createDbScriptRunTables();
+            }
+            if (!scriptCheckpointFacade.isCheckpointTableExist()) {
+                scriptExecutor.createDbScriptCheckpointTable();
+            }
+
             if (!scriptsFacade.isScriptTableExist()) {
                 scriptExecutor.createDbScriptTable();
                 scriptsFacade.createAllFromDirectory();
@@ -67,19 +98,47 @@ public class DbManager {
                 scriptsFacade.cleanExecDir();
                 checkUpdatedScripts();
                 checkDeletedScripts();
+                if (appArguments.isResume()) {
+                    resumeFailedScripts();
+                }
                 executeNewScripts();
+                outputRetention = scriptsFacade.applyOutputRetentionAsync();
             }
         } finally {
+            scriptRunFacade.finish();
             if (appArguments.isForceDisableJobs() && !appArguments.isGenDdl()) {
-                scriptExecutor.enableJobs();
+                jobControlFacade.finish();
             }
         }
         
         scriptExecutor.showInvalidObjects();
+
+        if (outputRetention != null) {
+            awaitOutputRetention(outputRetention);
+        }
+    }
+
+    private void awaitOutputRetention(CompletableFuture<Integer> outputRetention) {
+        try {
+            int purged = outputRetention.join();
+            if (purged > 0) {
+                logger.info("Purged [{}] script output records older than [{}] days", purged,
+                            appArguments.getOutputRetentionDays());
+            }
+        } catch (CompletionException e) {
+            logger.warn("Unable to apply script output retention: [{}]", ColorLogger.Color.YELLOW,
+                        e.getCause().getMessage());
+        }
     }
 
     public void runBackport(BackportRunner backportRunner) {
-        BackportResult result = backportRunner.run();
+        Set<File> backportedFiles = new LinkedHashSet<>();
+        BackportResult result = backportRunner.run(event -> {
+            backportedFiles.add(event.getFile());
+            if (event.getType() == BackportEvent.Type.WRITTEN) {
+                scriptsFacade.preloadScript(event.getFile());
+            }
+        });
 
         if (result.getWarnings() != null) {
             for (String warning : result.getWarnings()) {
@@ -99,11 +158,13 @@ public class DbManager {
             return;
         }
 
-        scriptsFacade.init();
+        scriptsFacade.refreshScripts(backportedFiles);
 
         updateDb();
 
+        Instant ddlStart = Instant.now();
         generateDdlForNewOrChangedScripts();
+        scriptRunFacade.recordDdlPhase(Duration.between(ddlStart, Instant.now()));
 
         logger.info("\nBackport completed successfully. Scripts written: {}, Rollback scripts written: {}",
                 GREEN, result.getScriptsWritten(), result.getRollbackScriptsWritten());
@@ -123,17 +184,25 @@ public class DbManager {
 
         if (appArguments.isExecuteScripts() || appArguments.isBackport()) {
             logger.info(SCRIPTS_TO_EXEC_MSG, appArguments.getDbCredentials(OWNER).getSchemaWithUrlBeforeDot());
-            newCommitScripts.forEach(script -> logger.info(script.getName()));
-            newCommitScripts.forEach(script -> {
-                int exitCode = scriptExecutor.execute(script);
-                script.setStatus(ScriptStatus.getByScriptExitCode(exitCode));
-                scriptsFacade.create(script);
-
-                if (script.getStatus() != ScriptStatus.EXECUTED && !appArguments.isIgnoreErrors()) {
-                    throw new ScriptExecException(MessageFormat.format(SCRIPT_EXECUTION_ERROR_MESSAGE, script.getName()));
+            printExecutionForecast(newCommitScripts);
+            jobControlFacade.suspendFor(newCommitScripts);
+            try (ScriptPrefetcher prefetcher = scriptExecutor.prefetch(newCommitScripts)) {
+                while (prefetcher.hasNext()) {
+                    PreparedScript preparedScript = prefetcher.next();
+                    SqlScript script = preparedScript.getScript();
+                    int exitCode = scriptExecutor.execute(preparedScript);
+                    script.setStatus(ScriptStatus.getByScriptExitCode(exitCode));
+                    scriptsFacade.create(script);
+                    scriptRunFacade.recordScript(script);
+
+                    if (script.getStatus() != ScriptStatus.EXECUTED && !appArguments.isIgnoreErrors()) {
+                        saveCheckpoint(preparedScript);
+                        throw new ScriptExecException(MessageFormat.format(SCRIPT_EXECUTION_ERROR_MESSAGE, script.getName()));
+                    }
+                    jobControlFacade.scriptCompleted();
                 }
-            });
-            scriptExecutor.executeCompileSchemas();
+            }
+            compileSchemas();
         } else {
             logger.info("You should execute following script files to update your database:");
             scriptsFacade.copyScriptsToExecDir(newCommitScripts);
@@ -142,6 +211,57 @@ public class DbManager {
         }
     }
 
+    /**
+     * Executes the scripts which stopped on error from the failed statement, as recorded by their checkpoints.
+     * Journal record of the failed execution is replaced with the record of the resumed one.
+     */
+    private void resumeFailedScripts() {
+        List<ScriptCheckpoint> checkpoints = new ArrayList<>();
+        List<SqlScript> scriptsToResume = new ArrayList<>();
+        List<ScriptCheckpoint> savedCheckpoints = scriptCheckpointFacade.readAll();
+        Map<String, SqlScript> failedScripts = scriptsFacade.getFailedScripts(
+                savedCheckpoints.stream().map(ScriptCheckpoint::getName).toList());
+        for (ScriptCheckpoint checkpoint : savedCheckpoints) {
+            SqlScript script = failedScripts.get(checkpoint.getName());
+            if (script == null) {
+                // executed manually and marked as executed or deleted since the failure
+                scriptCheckpointFacade.delete(checkpoint);
+                continue;
+            }
+            checkpoints.add(checkpoint);
+            scriptsToResume.add(script);
+        }
+        if (scriptsToResume.isEmpty()) {
+            return;
+        }
+
+        jobControlFacade.suspendFor(scriptsToResume);
+        for (int i = 0; i < scriptsToResume.size(); i++) {
+            ScriptCheckpoint checkpoint = checkpoints.get(i);
+            SqlScript script = scriptsToResume.get(i);
+            PreparedScript preparedScript = scriptExecutor.prepareResume(script, checkpoint);
+            int exitCode = scriptExecutor.execute(preparedScript);
+            script.setStatus(ScriptStatus.getByScriptExitCode(exitCode));
+            scriptsFacade.delete(script.getId());
+            scriptsFacade.create(script);
+            scriptRunFacade.recordScript(script);
+
+            if (script.getStatus() != ScriptStatus.EXECUTED) {
+                saveCheckpoint(preparedScript);
+                throw new ScriptExecException(MessageFormat.format(SCRIPT_EXECUTION_ERROR_MESSAGE, script.getName()));
+            }
+            scriptCheckpointFacade.delete(checkpoint);
+            jobControlFacade.scriptCompleted();
+        }
+    }
+
+    private void saveCheckpoint(PreparedScript preparedScript) {
+        ScriptCheckpoint checkpoint = scriptExecutor.createCheckpoint(preparedScript);
+        if (checkpoint != null && scriptCheckpointFacade.save(checkpoint)) {
+            logger.warn(RESUME_MESSAGE, YELLOW, checkpoint.getName(), checkpoint.getStatementNo() + 1);
+        }
+    }
+
     private void checkDeletedScripts() {
         logger.info("Rollback scripts execution mode: [{}]", appArguments.getRollbackMode());
 
@@ -201,6 +321,7 @@ public class DbManager {
     }
 
     private void executeRollbacks(Map<String, SqlScript> deletedScripts, List<SqlScript> rollbacksToExec) {
+        jobControlFacade.suspendFor(rollbacksToExec);
         for (SqlScript rollback : rollbacksToExec) {
             if (deletedScripts.containsKey(rollback.getCommitName())) {
                 scriptsFacade.copyRollbackToExecDir(rollback);
@@ -210,6 +331,8 @@ public class DbManager {
                 scriptsFacade.delete(commit.getId());
 
                 int exitCode = scriptExecutor.execute(rollback);
+                rollback.setStatus(ScriptStatus.getByScriptExitCode(exitCode));
+                scriptRunFacade.recordScript(rollback);
                 if (exitCode != 0) {
                     throw new ScriptExecException(MessageFormat.format(SCRIPT_EXECUTION_ERROR_MESSAGE, rollback.getName()));
                 }
@@ -217,8 +340,51 @@ public class DbManager {
                 deletedScripts.remove(rollback.getName());
                 deletedScripts.remove(rollback.getCommitName());
             }
+            jobControlFacade.scriptCompleted();
+        }
+        compileSchemas();
+    }
+
+    private void compileSchemas() {
+        CompilePhaseEvent event = new CompilePhaseEvent();
+        event.begin();
+        Instant start = Instant.now();
+        try {
+            scriptExecutor.executeCompileSchemas();
+            event.succeeded = true;
+        } finally {
+            event.commit();
+        }
+        scriptRunFacade.recordCompilePhase(Duration.between(start, Instant.now()));
+    }
+
+    /**
+     * Prints scripts to be executed with the expected start offset of each script, based on durations of previous runs.
+     * Scripts that historically took longer than --slow-script-threshold are flagged.
+     */
+    private void printExecutionForecast(List<SqlScript> scripts) {
+        Map<String, Long> avgDurations = scriptRunFacade.readAvgDurations(scripts);
+        long slowScriptThresholdMillis = appArguments.getSlowScriptThresholdSeconds() * 1000L;
+        long totalMillis = 0;
+        for (SqlScript script : scripts) {
+            Long avgMillis = avgDurations.get(script.getName());
+            if (avgMillis == null) {
+                logger.info(script.getName());
+                continue;
+            }
+            if (avgMillis > slowScriptThresholdMillis) {
+                logger.warn("{} [ETA +{}, usually takes {}]", YELLOW, script.getName(), formatDurationHMS(totalMillis),
+                            formatDurationHMS(avgMillis));
+            } else {
+                logger.info("{} [ETA +{}, usually takes {}]", script.getName(), formatDurationHMS(totalMillis),
+                            formatDurationHMS(avgMillis));
+            }
+            totalMillis += avgMillis;
+        }
+        if (!avgDurations.isEmpty()) {
+            logger.info("Predicted duration: {} (execution history found for {} of {} scripts)", CYAN,
+                        formatDurationHMS(totalMillis), avgDurations.size(), scripts.size());
         }
-        scriptExecutor.executeCompileSchemas();
     }
 
     private void checkUpdatedScripts() {
@@ -270,8 +436,7 @@ public class DbManager {
         Set<DbObject> updatedDbObjects;
 
         updatedDbObjects = scripts.stream()
-                                  .map(script -> ScriptHelper.removeSpecialFromScriptText(script.getText()))
-                                  .flatMap(scriptText -> ScriptHelper.findChangedDbObjectsInScriptText(scriptText).stream())
+                                  .flatMap(script -> ScriptHelper.getChangedDbObjects(script).stream())
                                   .collect(Collectors.toSet());
         return updatedDbObjects;
     }
@@ -281,7 +446,6 @@ public class DbManager {
 
         scriptsFacade.checkDbConnection();
 
-        ddlGenerator.executeSettingTransformParams();
         ddlGenerator.generateDllsForAllDbObjects();
     }
 
@@ -311,7 +475,7 @@ public class DbManager {
         List<SqlScript> commonScripts = new ArrayList<>();
         List<SqlScript> scriptsLessThanHundred = new ArrayList<>();
         for (SqlScript script : scripts) {
-            if (!script.getName().matches(SCRIPT_NUMBERING_IS_MORE_THAN_TWO_DIGITS_REGEX)) {
+            if (!isNumberingMoreThanTwoDigits(script.getName())) {
                 scriptsLessThanHundred.add(script);
             } else {
                 commonScripts.add(script);
@@ -330,4 +494,15 @@ public class DbManager {
             return commonScripts;
         }
     }
+
+    /**
+     * Same as matching "^\\d{3,}_.*" without the regex engine
+     */
+    private static boolean isNumberingMoreThanTwoDigits(String scriptName) {
+        int digits = 0;
+        while (digits < scriptName.length() && scriptName.charAt(digits) >= '0' && scriptName.charAt(digits) <= '9') {
+            digits++;
+        }
+        return digits >= 3 && digits < scriptName.length() && scriptName.charAt(digits) == '_';
+    }
 }
@@ -0,0 +1,231 @@
+package com.onevizion.scmdb;
+
+import com.onevizion.scmdb.jfr.DdlFileWriteEvent;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes DDL files on a bounded pool of I/O threads. File is rewritten only if its content differs from the new DDL,
+ * new content goes to a temp file which is then atomically renamed, so unchanged files keep their mtime
+ * and readers never see a partially written file.
+ * <p>
+ * Streamed DDL is written on the caller thread straight into the temp file channel and compared with the existing
+ * file afterwards, so memory use doesn't depend on the DDL size.
+ */
+public class DdlFileWriter implements AutoCloseable {
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int MAX_THREADS = 4;
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
+    private static final Set<PosixFilePermission> NEW_FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-r--r--");
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger deleted = new AtomicInteger();
+    private final AtomicReference<RuntimeException> error = new AtomicReference<>();
+
+    public DdlFileWriter() {
+        int threads = Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors());
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                                          runnable -> {
+                                              Thread thread = new Thread(runnable, "scmdb-ddl-writer");
+                                              thread.setDaemon(true);
+                                              return thread;
+                                          },
+                                          new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public void write(File file, String ddl) {
+        byte[] content = ddl.getBytes(StandardCharsets.UTF_8);
+        executor.execute(() -> {
+            DdlFileWriteEvent event = new DdlFileWriteEvent();
+            event.begin();
+            try {
+                if (isSameContent(file, content)) {
+                    unchanged.incrementAndGet();
+                } else {
+                    writeAtomically(file, content);
+                    written.incrementAndGet();
+                    event.changed = true;
+                }
+            } catch (IOException e) {
+                error.compareAndSet(null, new RuntimeException("Can't write ddl to file[" + file.getAbsolutePath() + "]", e));
+            } finally {
+                if (event.shouldCommit()) {
+                    event.file = file.getPath();
+                    event.size = content.length;
+                    event.commit();
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the DDL produced by the source, the source must be consumed before the method returns
+     *
+     * @return SHA-1 of the file content
+     */
+    public String write(File file, DdlSource ddl) {
+        DdlFileWriteEvent event = new DdlFileWriteEvent();
+        event.begin();
+        long size = 0;
+        try {
+            FileUtils.forceMkdirParent(file);
+            Path tmpFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+            try {
+                MessageDigest digest = DigestUtils.getSha1Digest();
+                try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.WRITE);
+                     Writer writer = new BufferedWriter(new OutputStreamWriter(
+                             new DigestOutputStream(Channels.newOutputStream(channel), digest), StandardCharsets.UTF_8),
+                             STREAM_BUFFER_SIZE)) {
+                    ddl.writeTo(writer);
+                    writer.flush();
+                    size = channel.size();
+                }
+                if (isSameContent(file, tmpFile)) {
+                    unchanged.incrementAndGet();
+                } else {
+                    move(tmpFile, file);
+                    written.incrementAndGet();
+                    event.changed = true;
+                }
+                return Hex.encodeHexString(digest.digest());
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Can't write ddl to file[" + file.getAbsolutePath() + "]", e);
+        } finally {
+            if (event.shouldCommit()) {
+                event.file = file.getPath();
+                event.size = size;
+                event.commit();
+            }
+        }
+    }
+
+    public void markDeleted() {
+        deleted.incrementAndGet();
+    }
+
+    private boolean isSameContent(File file, byte[] content) throws IOException {
+        if (!file.isFile() || file.length() != content.length) {
+            return false;
+        }
+        try (InputStream existing = new FileInputStream(file)) {
+            return IOUtils.contentEquals(existing, new ByteArrayInputStream(content));
+        }
+    }
+
+    private boolean isSameContent(File file, Path content) throws IOException {
+        if (!file.isFile() || file.length() != Files.size(content)) {
+            return false;
+        }
+        try (InputStream existing = new BufferedInputStream(new FileInputStream(file));
+             InputStream newContent = new BufferedInputStream(Files.newInputStream(content))) {
+            return IOUtils.contentEquals(existing, newContent);
+        }
+    }
+
+    private void writeAtomically(File file, byte[] content) throws IOException {
+        FileUtils.forceMkdirParent(file);
+        Path tmpFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".tmp");
+        try {
+            Files.write(tmpFile, content);
+            move(tmpFile, file);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    /**
+     * Replaces the file with the temp file, which gets permissions of the replaced file or the usual permissions
+     * of a new file instead of the owner-only permissions of a temp file
+     */
+    private static void move(Path tmpFile, File file) throws IOException {
+        try {
+            Set<PosixFilePermission> permissions = file.isFile() ? Files.getPosixFilePermissions(file.toPath())
+                    : NEW_FILE_PERMISSIONS;
+            Files.setPosixFilePermissions(tmpFile, permissions);
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system, temp files get the default permissions there
+        }
+        try {
+            Files.move(tmpFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmpFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    public int getWritten() {
+        return written.get();
+    }
+
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+
+    public int getDeleted() {
+        return deleted.get();
+    }
+
+    /**
+     * Waits for all pending writes and rethrows the first write error, if any. The error is thrown only once,
+     * so closing the writer again doesn't throw it again.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // keep waiting, every submitted DDL must reach the disk
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while writing ddl files", e);
+        }
+        RuntimeException writeError = error.getAndSet(null);
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    /**
+     * Producer of the streamed DDL
+     */
+    @FunctionalInterface
+    public interface DdlSource {
+        void writeTo(Writer writer) throws IOException;
+    }
+}
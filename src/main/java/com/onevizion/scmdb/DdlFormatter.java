@@ -0,0 +1,299 @@
+package com.onevizion.scmdb;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.regex.Pattern;
+
+/**
+ * Applies DDL normalizations in a single pass over the text. Every normalization is a stage of a char pipeline,
+ * stages follow in the same order as the regex rewrites they replace and keep their semantics:
+ * schema prefix removal, trim with the trailing "/" on its own line, LF to CRLF conversion,
+ * EDITIONABLE modifiers removal, double quotes removal outside of literals and comments, CASE re-quoting.
+ */
+public class DdlFormatter {
+    private static final String NONEDITIONABLE_MODIFIER = "NONEDITIONABLE ";
+    private static final String EDITIONABLE_MODIFIER = "EDITIONABLE ";
+
+    private final String schemaPrefix;
+    private final Pattern schemaPrefixPattern;
+
+    public DdlFormatter(String schemaName) {
+        schemaPrefix = "\"" + schemaName.toUpperCase() + "\"";
+        // schema name is quoted: "$" in it used to be a regex anchor, so the prefix of such schemas wasn't removed
+        schemaPrefixPattern = Pattern.compile(Pattern.quote(schemaPrefix) + ".");
+    }
+
+    public String removeSchemaName(String ddl) {
+        return schemaPrefixPattern.matcher(ddl).replaceAll("");
+    }
+
+    /**
+     * Full formatting of the source objects (packages and types)
+     */
+    public String formatSource(String ddl) {
+        StringBuilder result = new StringBuilder(ddl.length() + ddl.length() / 16);
+        formatSource(new StringReader(ddl), result);
+        return result.toString();
+    }
+
+    public void formatSource(Reader ddl, Appendable out) {
+        Stage stage = codeStyleStages(new AppendableSink(out));
+        stage = new CrlfStage(stage);
+        stage = new TrimStage(stage);
+        stage = new ReplaceStage(schemaPrefix + ".", "", true, stage);
+        pump(ddl, stage);
+    }
+
+    /**
+     * Formatting applied to the table and view DDLs which are already assembled
+     */
+    public String applyCodeStyle(String ddl) {
+        StringBuilder result = new StringBuilder(ddl.length());
+        pump(new StringReader(ddl), codeStyleStages(new AppendableSink(result)));
+        return result.toString();
+    }
+
+    private Stage codeStyleStages(Stage sink) {
+        Stage stage = new ReplaceStage("(CASE)", "(\"CASE\")", false, sink);
+        stage = new ReplaceStage("CASE,", "\"CASE\",", false, stage);
+        stage = new QuoteStage(stage);
+        stage = new ReplaceStage(EDITIONABLE_MODIFIER, "", false, stage);
+        return new ReplaceStage(NONEDITIONABLE_MODIFIER, "", false, stage);
+    }
+
+    private static void pump(Reader reader, Stage stage) {
+        char[] buffer = new char[8192];
+        try {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    stage.put(buffer[i]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read ddl", e);
+        }
+        stage.end();
+    }
+
+    private interface Stage {
+        void put(char c);
+
+        void end();
+    }
+
+    private static class AppendableSink implements Stage {
+        private final Appendable out;
+
+        AppendableSink(Appendable out) {
+            this.out = out;
+        }
+
+        @Override
+        public void put(char c) {
+            try {
+                out.append(c);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Can't write ddl", e);
+            }
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+
+    /**
+     * Leftmost non-overlapping replacement of the literal, same as {@link String#replaceAll} does.
+     * Last char of the target may be a wildcard matching any char except line terminators (regex ".").
+     */
+    private static class ReplaceStage implements Stage {
+        private final String target;
+        private final String replacement;
+        private final boolean lastCharWildcard;
+        private final Stage next;
+        private final StringBuilder window = new StringBuilder();
+
+        ReplaceStage(String target, String replacement, boolean lastCharWildcard, Stage next) {
+            this.target = target;
+            this.replacement = replacement;
+            this.lastCharWildcard = lastCharWildcard;
+            this.next = next;
+        }
+
+        @Override
+        public void put(char c) {
+            window.append(c);
+            while (!window.isEmpty() && !isTargetPrefix()) {
+                next.put(window.charAt(0));
+                window.deleteCharAt(0);
+            }
+            if (window.length() == target.length()) {
+                for (int i = 0; i < replacement.length(); i++) {
+                    next.put(replacement.charAt(i));
+                }
+                window.setLength(0);
+            }
+        }
+
+        private boolean isTargetPrefix() {
+            for (int i = 0; i < window.length(); i++) {
+                char c = window.charAt(i);
+                boolean matches = lastCharWildcard && i == target.length() - 1
+                        ? !isLineTerminator(c)
+                        : target.charAt(i) == c;
+                if (!matches) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static boolean isLineTerminator(char c) {
+            return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+        }
+
+        @Override
+        public void end() {
+            for (int i = 0; i < window.length(); i++) {
+                next.put(window.charAt(i));
+            }
+            window.setLength(0);
+            next.end();
+        }
+    }
+
+    /**
+     * {@link String#trim()} followed by replacement of the whitespaces before the trailing "/" with a line feed
+     */
+    private static class TrimStage implements Stage {
+        private final Stage next;
+        private final StringBuilder pendingWhitespaces = new StringBuilder();
+        private final StringBuilder whitespacesAfterSlash = new StringBuilder();
+        private boolean started;
+        private boolean pendingSlash;
+
+        TrimStage(Stage next) {
+            this.next = next;
+        }
+
+        @Override
+        public void put(char c) {
+            if (!started) {
+                if (c <= ' ') {
+                    return;
+                }
+                started = true;
+            }
+            if (c <= ' ') {
+                (pendingSlash ? whitespacesAfterSlash : pendingWhitespaces).append(c);
+                return;
+            }
+            if (pendingSlash) {
+                flushWhitespaces(pendingWhitespaces.length());
+                next.put('/');
+                pendingWhitespaces.append(whitespacesAfterSlash);
+                whitespacesAfterSlash.setLength(0);
+                pendingSlash = false;
+            }
+            if (c == '/') {
+                pendingSlash = true;
+                return;
+            }
+            flushWhitespaces(pendingWhitespaces.length());
+            next.put(c);
+        }
+
+        @Override
+        public void end() {
+            if (pendingSlash) {
+                int regexWhitespaces = 0;
+                while (regexWhitespaces < pendingWhitespaces.length() && isRegexWhitespace(
+                        pendingWhitespaces.charAt(pendingWhitespaces.length() - 1 - regexWhitespaces))) {
+                    regexWhitespaces++;
+                }
+                flushWhitespaces(pendingWhitespaces.length() - regexWhitespaces);
+                if (regexWhitespaces > 0) {
+                    next.put('\n');
+                }
+                next.put('/');
+            }
+            next.end();
+        }
+
+        private void flushWhitespaces(int count) {
+            for (int i = 0; i < count; i++) {
+                next.put(pendingWhitespaces.charAt(i));
+            }
+            pendingWhitespaces.delete(0, pendingWhitespaces.length());
+        }
+
+        private static boolean isRegexWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+        }
+    }
+
+    private static class CrlfStage implements Stage {
+        private final Stage next;
+
+        CrlfStage(Stage next) {
+            this.next = next;
+        }
+
+        @Override
+        public void put(char c) {
+            if (c == '\n') {
+                next.put('\r');
+            }
+            next.put(c);
+        }
+
+        @Override
+        public void end() {
+            next.end();
+        }
+    }
+
+    /**
+     * Removes double quotes around object names, quotes inside of string literals and comments are kept
+     */
+    private static class QuoteStage implements Stage {
+        private final Stage next;
+        private boolean isSingleQuoteOpened = false;
+        private boolean isSingleLineCommentStarted = false;
+        private boolean isMultiLineCommentStarted = false;
+        private char previousSymbol = '\n';
+
+        QuoteStage(Stage next) {
+            this.next = next;
+        }
+
+        @Override
+        public void put(char symbol) {
+            if (symbol == '-' && previousSymbol == '-' && !(isMultiLineCommentStarted || isSingleQuoteOpened)) {
+                isSingleLineCommentStarted = true;
+            } else if (symbol == '*' && previousSymbol == '/') {
+                isMultiLineCommentStarted = true;
+            } else if (symbol == '/' && previousSymbol == '*') {
+                isMultiLineCommentStarted = false;
+            } else if (symbol == '\n') {
+                isSingleLineCommentStarted = false;
+            } else if (symbol == '\'' && !(isSingleLineCommentStarted || isMultiLineCommentStarted)) {
+                isSingleQuoteOpened = !isSingleQuoteOpened;
+            }
+
+            if (isSingleQuoteOpened || isSingleLineCommentStarted || isMultiLineCommentStarted || symbol != '"') {
+                next.put(symbol);
+            }
+
+            previousSymbol = symbol;
+        }
+
+        @Override
+        public void end() {
+            next.end();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.onevizion.scmdb;
 
+import com.onevizion.scmdb.dao.DataDictionarySnapshot;
 import com.onevizion.scmdb.dao.DdlDao;
 import com.onevizion.scmdb.vo.DbObject;
-import org.apache.commons.io.FileUtils;
+import com.onevizion.scmdb.vo.DbObjectState;
+import com.onevizion.scmdb.vo.DbObjectType;
 import org.apache.commons.io.IOCase;
 import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.lang3.StringUtils;
@@ -12,7 +14,9 @@ import org.springframework.stereotype.Component;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -24,34 +28,24 @@ import static com.onevizion.scmdb.vo.SchemaType.OWNER;
 @Component
 public class DdlGenerator {
     private static final String PACKAGE_OR_TYPE_SPEC_DDL_FILE_POSTFIX = "_spec";
-    private static final String EDITIONABLE_MODIFIER = "EDITIONABLE ";
-    private static final String NOEDITIONABLE_MODIFIER = "NONEDITIONABLE ";
     private static final String PK_CONSTRAINT_INDEX_POSTFIX = "\n  USING INDEX  ENABLE";
     private static final Pattern CONSTRAINTS_BLOCK_PATTERN = Pattern.compile("(^\\s*(PRIMARY KEY|CONSTRAINT)[\\s\\S]*)(\\n\\s*((\\);)|(\\))))", Pattern.MULTILINE);
     private static final Pattern CONSTRAINT_NAME_PATTERN = Pattern.compile("CONSTRAINT\\s(\\S*)\\s[^PRIMARY KEY]", Pattern.MULTILINE);
     private static final Pattern PRIMARY_KEY_LINE_PATTERN = Pattern.compile("(PRIMARY KEY\\s(\\S*))", Pattern.MULTILINE);
     private static final Pattern COMMENT_ON_TABLE_PATTERN = Pattern.compile("COMMENT ON TABLE.+", Pattern.CASE_INSENSITIVE);
     private static final Pattern COMMENT_COLUMN_NAME_PATTERN = Pattern.compile("COMMENT ON COLUMN.+\\.\"(.*)\" IS.*", Pattern.MULTILINE);
-
-    private static final Comparator<String> CONSTRAINT_COMPARATOR = new Comparator<String>() {
-        public int compare(String column1, String column2) {
-            int result;
-            String name1WithoutNum = column1.replaceAll("\\d", "");
-            String name2WithoutNum = column2.replaceAll("\\d", "");
-
-            if (name1WithoutNum.equalsIgnoreCase(name2WithoutNum)) {
-                result = extractInt(column1) - extractInt(column2);
-            } else {
-                result = column1.compareTo(column2);
-            }
-            return result;
-        }
-
-        int extractInt(String s) {
-            String num = s.replaceAll("\\D", "");
-            return num.isEmpty() ? 0 : Integer.parseInt(num);
-        }
-    };
+    private static final Pattern WHITESPACES_BEFORE_SEMICOLON_PATTERN = Pattern.compile("\\s+;");
+    private static final Pattern WHITESPACES_BEFORE_LAST_SEMICOLON_PATTERN = Pattern.compile("\\s+;$");
+    private static final Pattern COLUMNS_BLOCK_START_PATTERN = Pattern.compile("\\n\\s+\\(");
+    private static final Pattern COLUMNS_BLOCK_END_PATTERN = Pattern.compile("\\s+\\)");
+    private static final Pattern REFERENCES_LINE_PATTERN = Pattern.compile("\\r\\n\\s+REFERENCES\\s");
+    private static final Pattern CONSTRAINTS_SEPARATOR_PATTERN = Pattern.compile(",\\s*\\n");
+    private static final Pattern COMMENTS_SEPARATOR_PATTERN = Pattern.compile("(?<=';)");
+    private static final Pattern WHITESPACES_BEFORE_SLASH_PATTERN = Pattern.compile("\\s+/");
+    private static final Pattern ALTER_TRIGGER_ENABLE_PATTERN = Pattern.compile("ALTER TRIGGER \"\\w+\" ENABLE;");
+    private static final Pattern WHITESPACES_BEFORE_COMMENT_PATTERN = Pattern.compile("\\s+COMMENT");
+    private static final Pattern COMMENT_PATTERN = Pattern.compile("COMMENT", Pattern.LITERAL);
+    private static final String[] EXCLUDED_SEQUENCES = {"SEQ_BPD_ITEMS_UNIT_ID"};
 
     @Autowired
     private DdlDao ddlDao;
@@ -62,7 +56,11 @@ public class DdlGenerator {
     @Autowired
     private ColorLogger logger;
 
-    private final String[] excludedSequences = {"SEQ_BPD_ITEMS_UNIT_ID"};
+    private DdlFileWriter ddlFileWriter;
+    private DdlFormatter ddlFormatter;
+    private DdlManifest ddlManifest;
+    private DataDictionarySnapshot dictionary;
+
     private final String[] excludedPackages = {"PKGR_"};
     private final String[] excludedViews = {"VX_"};
 
@@ -70,6 +68,7 @@ public class DdlGenerator {
     private static final String TABLES_DDL_DIRECTORY_NAME = "tables";
     private static final String VIEWS_DDL_DIRECTORY_NAME = "views";
     private static final String TYPES_DDL_DIRECTORY_NAME = "types";
+    private static final int EXPORT_PROGRESS_STEP = 100;
 
     public void executeSettingTransformParams() {
         ddlDao.executeTransformParamStatements();
@@ -78,91 +77,73 @@ public class DdlGenerator {
     private void generatePackageSpecScripts(DbObject pkgSpec) {
         if (!isExcludeObject(pkgSpec.getName(), excludedPackages)) {
             logger.info("Generating DDL for package spec [{}]", GREEN, pkgSpec.getName());
-            String ddl = removeSchemaNameInDdl(pkgSpec.getDdl());
-            ddl = ddl.trim();
-            ddl = ddl.replaceFirst("\\s+/$", "\n/");
-            ddl = ddl.replaceAll("\\n", "\r\n");
-            pkgSpec.setDdl(ddl);
-            prepareAndWriteDdlToFile(pkgSpec, PACKAGES_DDL_DIRECTORY_NAME);
+            writeSourceDdlToFile(pkgSpec, PACKAGES_DDL_DIRECTORY_NAME);
         }
     }
 
     private void generatePackageBodyScripts(DbObject pkgBody) {
         if (!isExcludeObject(pkgBody.getName(), excludedPackages)) {
             logger.info("Generating DDL for package body [{}]", GREEN, pkgBody.getName());
-            String ddl = removeSchemaNameInDdl(pkgBody.getDdl());
-            ddl = ddl.trim();
-            ddl = ddl.replaceFirst("\\s+/$", "\n/");
-            ddl = ddl.replaceAll("\\n", "\r\n");
-            pkgBody.setDdl(ddl);
-            prepareAndWriteDdlToFile(pkgBody, PACKAGES_DDL_DIRECTORY_NAME);
+            writeSourceDdlToFile(pkgBody, PACKAGES_DDL_DIRECTORY_NAME);
         }
     }
 
     private void generateTableScripts(DbObject table) {
         logger.info("Generating DDL for table [{}]", GREEN, table.getName());
-        String ddl = removeSchemaNameInDdl(table.getDdl());
+        logger.info("Adding indexes...");
+        List<DbObject> indexes = ddlDao.extractTableDependentObjectsDdl(table.getName(), INDEX);
+        logger.info("Adding comments...");
+        List<DbObject> comments = ddlDao.extractTableDependentObjectsDdl(table.getName(), COMMENT);
+        logger.info("Adding sequences...");
+        List<DbObject> sequences = ddlDao.extractTableDependentObjectsDdl(table.getName(), SEQUENCE);
+        logger.info("Adding triggers...");
+        List<DbObject> triggers = ddlDao.extractTableDependentObjectsDdl(table.getName(), TRIGGER);
+        table.setDdl(formatTableDdl(ddlFormatter, table.getDdl(), indexes, comments, sequences, triggers));
+        writeDdlToFile(table, TABLES_DDL_DIRECTORY_NAME);
+    }
+
+    /**
+     * Assembles the table DDL with the DDL of its indexes, comments, sequences and triggers
+     */
+    static String formatTableDdl(DdlFormatter formatter, String tableDdl, List<DbObject> indexes,
+                                 List<DbObject> comments, List<DbObject> sequences, List<DbObject> triggers) {
+        String ddl = formatter.removeSchemaName(tableDdl);
         ddl = ddl.trim();
-        ddl = ddl.replaceAll(PK_CONSTRAINT_INDEX_POSTFIX, "");
-        ddl = ddl.replaceAll("\\s+;", ";");
-        ddl = ddl.replaceFirst("\\n\\s+\\(", "(\n");
-        ddl = ddl.replaceFirst("\\s+\\)", "\n)");
-        ddl = ddl.replaceAll("\\n", "\r\n");
-        ddl = ddl.replaceAll("\\t", "    ");
-        ddl = ddl.replaceAll("\\r\\n\\s+REFERENCES\\s", " REFERENCES ");
+        ddl = ddl.replace(PK_CONSTRAINT_INDEX_POSTFIX, "");
+        ddl = WHITESPACES_BEFORE_SEMICOLON_PATTERN.matcher(ddl).replaceAll(";");
+        ddl = COLUMNS_BLOCK_START_PATTERN.matcher(ddl).replaceFirst("(\n");
+        ddl = COLUMNS_BLOCK_END_PATTERN.matcher(ddl).replaceFirst("\n)");
+        ddl = ddl.replace("\n", "\r\n");
+        ddl = ddl.replace("\t", "    ");
+        ddl = REFERENCES_LINE_PATTERN.matcher(ddl).replaceAll(" REFERENCES ");
         ddl = sortConstraintsInTableDdl(ddl);
-        ddl += generateIndexScripts(table);
-        ddl += generateTableCommentsDdl(table);
-        ddl += generateSequenceScripts(table);
-        ddl += generateTriggerScripts(table);
-        table.setDdl(ddl);
-        prepareAndWriteDdlToFile(table, TABLES_DDL_DIRECTORY_NAME);
-    }
-
-    private String applyCodeStyleFormattingToDdl(String ddl) {
-        ddl = removeEditionableObjectsModifiers(ddl);
-        return removeDoubleQuotesAroundObjectNames(ddl);
-    }
-
-    private String removeEditionableObjectsModifiers(String ddl) {
-        ddl = ddl.replaceAll(NOEDITIONABLE_MODIFIER, "");
-        return ddl.replaceAll(EDITIONABLE_MODIFIER, "");
-    }
-
-    private String removeDoubleQuotesAroundObjectNames(String ddl) {
-        boolean isSingleQuoteOpened = false;
-        boolean isSingleLineCommentStarted = false;
-        boolean isMultiLineCommentStarted = false;
-        char previousSymbol = '\n';
-        StringBuilder result = new StringBuilder();
-        for (char symbol : ddl.toCharArray()) {
-            if (symbol == '-' && previousSymbol == '-' && !(isMultiLineCommentStarted || isSingleQuoteOpened)) {
-                isSingleLineCommentStarted = true;
-            } else if (symbol == '*' && previousSymbol == '/') {
-                isMultiLineCommentStarted = true;
-            } else if (symbol == '/' && previousSymbol == '*') {
-                isMultiLineCommentStarted = false;
-            } else if (symbol == '\n') {
-                isSingleLineCommentStarted = false;
-            } else if (symbol == '\'' && !(isSingleLineCommentStarted || isMultiLineCommentStarted)) {
-                isSingleQuoteOpened = !isSingleQuoteOpened;
-            }
-
-            if (isSingleQuoteOpened || isSingleLineCommentStarted || isMultiLineCommentStarted || symbol != '"') {
-                result.append(symbol);
-            }
+        ddl += generateIndexScripts(formatter, indexes);
+        ddl += generateTableCommentsDdl(formatter, comments);
+        ddl += generateSequenceScripts(formatter, sequences);
+        ddl += generateTriggerScripts(formatter, triggers);
+        return formatter.applyCodeStyle(ddl);
+    }
 
-            previousSymbol = symbol;
+    private void writeDdlToFile(DbObject dbObject, String ddlDirectoryName) {
+        File file = getDdlFile(dbObject, ddlDirectoryName);
+        ddlFileWriter.write(file, dbObject.getDdl());
+        if (ddlManifest != null) {
+            ddlManifest.putFile(dbObject, file, dbObject.getDdl());
         }
-
-        String unquotedDdl = result.toString();
-
-        return unquotedDdl.replaceAll("CASE,", "\"CASE\",").replaceAll("\\(CASE\\)","(\"CASE\")");
     }
 
-    private void prepareAndWriteDdlToFile(DbObject dbObject, String ddlDirectoryName) {
-        dbObject.setDdl(applyCodeStyleFormattingToDdl(dbObject.getDdl()));
+    /**
+     * Formats the DDL streamed from the database straight into the file
+     */
+    private void writeSourceDdlToFile(DbObject dbObject, String ddlDirectoryName) {
+        File file = getDdlFile(dbObject, ddlDirectoryName);
+        String hash = ddlFileWriter.write(file, writer -> ddlFormatter.formatSource(dbObject.getDdlReader(), writer));
+        if (ddlManifest != null) {
+            ddlManifest.putFileHash(dbObject, file, hash);
+        }
+    }
 
+    private File getDdlFile(DbObject dbObject, String ddlDirectoryName) {
         String directoryPath = appArguments.getDdlsDirectory().getAbsolutePath() + File.separator + ddlDirectoryName;
 
         String filePath = directoryPath + File.separator + dbObject.getName().toLowerCase();
@@ -170,20 +151,13 @@ public class DdlGenerator {
             filePath += PACKAGE_OR_TYPE_SPEC_DDL_FILE_POSTFIX;
         }
         filePath += ".sql";
-        File file = new File(filePath);
-        try {
-            FileUtils.write(file, dbObject.getDdl(), "UTF-8", false);
-        } catch (IOException e) {
-            throw new RuntimeException("Can't write ddl to file[" + file.getAbsolutePath() + "]", e);
-        }
+        return new File(filePath);
     }
 
-    private String generateTableCommentsDdl(DbObject table) {
-        logger.info("Adding comments...");
-        List<DbObject> commentBlocks = ddlDao.extractTableDependentObjectsDdl(table.getName(), COMMENT);
+    private static String generateTableCommentsDdl(DdlFormatter formatter, List<DbObject> commentBlocks) {
         StringBuilder commentsDdl = new StringBuilder();
         for (DbObject commentBlock : commentBlocks) {
-            String ddl = removeSchemaNameInDdl(commentBlock.getDdl());
+            String ddl = formatter.removeSchemaName(commentBlock.getDdl());
             ddl = ddl.trim();
             commentsDdl.append("\r\n");
             Matcher commentOnTableMatcher = COMMENT_ON_TABLE_PATTERN.matcher(ddl);
@@ -193,13 +167,13 @@ public class DdlGenerator {
                 commentsDdl.append(commentStmt);
             }
 
-            String[] comments = ddl.split("(?<=';)");
-            Map<String, String> commentByColumnName = new TreeMap<>(CONSTRAINT_COMPARATOR);
+            String[] comments = COMMENTS_SEPARATOR_PATTERN.split(ddl);
+            Map<ConstraintSortKey, String> commentByColumnName = new TreeMap<>();
             for (String comment : comments) {
                 Matcher nameMatcher = COMMENT_COLUMN_NAME_PATTERN.matcher(comment);
                 if (nameMatcher.find()) {
-                    String commentStmt = comment.trim().replaceAll("\\n", "");
-                    commentByColumnName.put(nameMatcher.group(1), commentStmt);
+                    String commentStmt = comment.trim().replace("\n", "");
+                    commentByColumnName.put(new ConstraintSortKey(nameMatcher.group(1)), commentStmt);
                 }
             }
 
@@ -211,13 +185,11 @@ public class DdlGenerator {
         return commentsDdl.toString();
     }
 
-    private String generateIndexScripts(DbObject table) {
-        logger.info("Adding indexes...");
-        List<DbObject> indexes = ddlDao.extractTableDependentObjectsDdl(table.getName(), INDEX);
+    private static String generateIndexScripts(DdlFormatter formatter, List<DbObject> indexes) {
         StringBuilder indexesDdl = new StringBuilder();
         for (int i = 0; i < indexes.size(); i++) {
             DbObject index = indexes.get(i);
-            String ddl = removeSchemaNameInDdl(index.getDdl());
+            String ddl = formatter.removeSchemaName(index.getDdl());
             ddl = ddl.trim();
             if (i == 0) {
                 ddl = "\r\n\r\n" + ddl;
@@ -229,14 +201,12 @@ public class DdlGenerator {
         return indexesDdl.toString();
     }
 
-    private String generateSequenceScripts(DbObject table) {
-        logger.info("Adding sequences...");
-        List<DbObject> sequences = ddlDao.extractTableDependentObjectsDdl(table.getName(), SEQUENCE);
+    private static String generateSequenceScripts(DdlFormatter formatter, List<DbObject> sequences) {
         StringBuilder sequencesDdl = new StringBuilder();
         for (DbObject sequence : sequences) {
-            String ddl = removeSchemaNameInDdl(sequence.getDdl());
+            String ddl = formatter.removeSchemaName(sequence.getDdl());
             boolean isExcludable = false;
-            for (String exclSeq : excludedSequences) {
+            for (String exclSeq : EXCLUDED_SEQUENCES) {
                 if (ddl.contains(exclSeq)) {
                     isExcludable = true;
                     break;
@@ -253,27 +223,25 @@ public class DdlGenerator {
                 ddl = ddl.substring(0, index + 1);
                 ddl += ";";
             } else {
-                ddl = ddl.replaceAll("\\s+;$", ";");
+                ddl = WHITESPACES_BEFORE_LAST_SEMICOLON_PATTERN.matcher(ddl).replaceAll(";");
             }
             sequencesDdl.append(ddl);
         }
         return sequencesDdl.toString();
     }
 
-    private String generateTriggerScripts(DbObject table) {
-        logger.info("Adding triggers...");
-        List<DbObject> triggers = ddlDao.extractTableDependentObjectsDdl(table.getName(), TRIGGER);
+    private static String generateTriggerScripts(DdlFormatter formatter, List<DbObject> triggers) {
         StringBuilder triggersDdl = new StringBuilder();
         if (!triggers.isEmpty()) {
             triggersDdl.append("\r\n");
         }
         for (DbObject trigger : triggers) {
-            String ddl = removeSchemaNameInDdl(trigger.getDdl());
+            String ddl = formatter.removeSchemaName(trigger.getDdl());
             ddl = ddl.trim();
-            ddl = ddl.replaceAll("\\n", "\r\n");
+            ddl = ddl.replace("\n", "\r\n");
             ddl = "\r\n" + ddl;
-            ddl = ddl.replaceAll("\\s+/", "\r\n/");
-            ddl = ddl.replaceFirst("ALTER TRIGGER \"\\w+\" ENABLE;", "");
+            ddl = WHITESPACES_BEFORE_SLASH_PATTERN.matcher(ddl).replaceAll("\r\n/");
+            ddl = ALTER_TRIGGER_ENABLE_PATTERN.matcher(ddl).replaceFirst("");
             triggersDdl.append(ddl);
         }
         return triggersDdl.toString();
@@ -282,24 +250,31 @@ public class DdlGenerator {
     private void generateViewScripts(DbObject view) {
         if (!isExcludeObject(view.getName(), excludedViews)) {
             logger.info("Generating DDL for view [{}]", GREEN, view.getName());
-            String ddl = removeSchemaNameInDdl(view.getDdl());
-            ddl = ddl.trim();
-            ddl = ddl.replaceAll("\\s+;", ";");
-            ddl = ddl.replaceAll("\\n", "\r\n");
-            ddl += generateViewCommentsScripts(view);
-            view.setDdl(ddl);
-            prepareAndWriteDdlToFile(view, VIEWS_DDL_DIRECTORY_NAME);
+            logger.info("Adding views comments...");
+            List<DbObject> comments = ddlDao.extractTableDependentObjectsDdl(view.getName(), COMMENT);
+            view.setDdl(formatViewDdl(ddlFormatter, view.getDdl(), comments));
+            writeDdlToFile(view, VIEWS_DDL_DIRECTORY_NAME);
         }
     }
 
-    private String generateViewCommentsScripts(DbObject view) {
-        logger.info("Adding views comments...");
-        List<DbObject> comments = ddlDao.extractTableDependentObjectsDdl(view.getName(), COMMENT);
+    /**
+     * Assembles the view DDL with the DDL of its comments
+     */
+    static String formatViewDdl(DdlFormatter formatter, String viewDdl, List<DbObject> comments) {
+        String ddl = formatter.removeSchemaName(viewDdl);
+        ddl = ddl.trim();
+        ddl = WHITESPACES_BEFORE_SEMICOLON_PATTERN.matcher(ddl).replaceAll(";");
+        ddl = ddl.replace("\n", "\r\n");
+        ddl += generateViewCommentsScripts(formatter, comments);
+        return formatter.applyCodeStyle(ddl);
+    }
+
+    private static String generateViewCommentsScripts(DdlFormatter formatter, List<DbObject> comments) {
         StringBuilder commentsDdl = new StringBuilder();
         for (DbObject comment : comments) {
-            String ddl = removeSchemaNameInDdl(comment.getDdl());
-            ddl = ddl.replaceAll("\\s+COMMENT", "\r\nCOMMENT");
-            ddl = ddl.replaceFirst("COMMENT", "\r\nCOMMENT");
+            String ddl = formatter.removeSchemaName(comment.getDdl());
+            ddl = WHITESPACES_BEFORE_COMMENT_PATTERN.matcher(ddl).replaceAll("\r\nCOMMENT");
+            ddl = COMMENT_PATTERN.matcher(ddl).replaceFirst("\r\nCOMMENT");
             commentsDdl.append(ddl);
         }
         return commentsDdl.toString();
@@ -307,41 +282,59 @@ public class DdlGenerator {
 
     private void generateTypeBodyScripts(DbObject typeBody) {
         logger.info("Generating DDL for type body [{}]", GREEN, typeBody.getName());
-        String ddl = removeSchemaNameInDdl(typeBody.getDdl());
-        ddl = ddl.trim();
-        ddl = ddl.replaceFirst("\\s+/$", "\n/");
-        ddl = ddl.replaceAll("\\n", "\r\n");
-        typeBody.setDdl(ddl);
-        prepareAndWriteDdlToFile(typeBody, TYPES_DDL_DIRECTORY_NAME);
+        writeSourceDdlToFile(typeBody, TYPES_DDL_DIRECTORY_NAME);
     }
 
     private void generateTypeSpecScripts(DbObject typeSpec) {
         logger.info("Generating DDL for type spec [{}]", GREEN, typeSpec.getName());
-        String ddl = removeSchemaNameInDdl(typeSpec.getDdl());
-        ddl = ddl.trim();
-        ddl = ddl.replaceFirst("\\s+/$", "\n/");
-        ddl = ddl.replaceAll("\\n", "\r\n");
-        typeSpec.setDdl(ddl);
-        prepareAndWriteDdlToFile(typeSpec, TYPES_DDL_DIRECTORY_NAME);
+        writeSourceDdlToFile(typeSpec, TYPES_DDL_DIRECTORY_NAME);
     }
 
     public void generateDdls(Collection<DbObject> dbObjects, boolean skipGenDdlForDepObject) {
+        dictionary = ddlDao.loadDataDictionarySnapshot();
+        try {
+            withDdlFileWriter(() -> generateDdlFiles(dbObjects, skipGenDdlForDepObject));
+        } finally {
+            dictionary = null;
+        }
+    }
+
+    private void withDdlFileWriter(Runnable generation) {
+        ddlFormatter = new DdlFormatter(appArguments.getDbCredentials(OWNER).getSchemaName());
+        try (DdlFileWriter writer = new DdlFileWriter()) {
+            ddlFileWriter = writer;
+            generation.run();
+            writer.close();
+            logger.info("DDL files written: {}, unchanged: {}, deleted: {}", GREEN,
+                    writer.getWritten(), writer.getUnchanged(), writer.getDeleted());
+        } finally {
+            ddlFileWriter = null;
+        }
+    }
+
+    private void generateDdlFiles(Collection<DbObject> dbObjects, boolean skipGenDdlForDepObject) {
         Set<DbObject> tables = new HashSet<>();
         for (DbObject dbObject : dbObjects) {
             if (dbObject.getType() == COMMENT && !skipGenDdlForDepObject) {
-                dbObject.setType(ddlDao.getObjectTypeByName(dbObject.getName()));
+                DbObjectType commentedObjectType = dictionary.getObjectTypeByName(dbObject.getName());
+                if (commentedObjectType == null) {
+                    logger.warn("Commented object {} not found! Please, modify related DDL manually.", RED,
+                            dbObject.getName());
+                    continue;
+                }
+                dbObject.setType(commentedObjectType);
             }
 
             if ((dbObject.getType() == INDEX || dbObject.getType() == TRIGGER) && !skipGenDdlForDepObject) {
-                String tableName = ddlDao.getTableNameByDepObject(dbObject);
-                if (ddlDao.isExist(tableName, TABLE)) {
+                String tableName = dictionary.getTableNameByDepObject(dbObject);
+                if (dictionary.isExist(tableName, TABLE)) {
                     tables.add(new DbObject(tableName, TABLE));
                 } else {
                     logger.warn("Parent object not found for {} {}! Please, modify related DDL manually.", RED,
                             dbObject.getType(), dbObject.getName());
                 }
             } else if (dbObject.getType() == SEQUENCE && !skipGenDdlForDepObject) {
-                String tableName = ddlDao.getTableNameByDepObject(dbObject);
+                String tableName = dictionary.getTableNameByDepObject(dbObject);
                 if (StringUtils.isNotBlank(tableName)) {
                     tables.add(new DbObject(tableName, TABLE));
                 } else {
@@ -354,18 +347,7 @@ public class DdlGenerator {
                 }
             } else {
                 if (!checkAndDeleteRedundantDdl(dbObject)) {
-                    dbObject.setDdl(ddlDao.extractDdl(dbObject));
-                    if (dbObject.getType() == PACKAGE_BODY) {
-                        generatePackageBodyScripts(dbObject);
-                    } else if (dbObject.getType() == PACKAGE_SPEC) {
-                        generatePackageSpecScripts(dbObject);
-                    } else if (dbObject.getType() == VIEW) {
-                        generateViewScripts(dbObject);
-                    } else if (dbObject.getType() == TYPE_BODY) {
-                        generateTypeBodyScripts(dbObject);
-                    } else if (dbObject.getType() == TYPE_SPEC) {
-                        generateTypeSpecScripts(dbObject);
-                    }
+                    ddlDao.extractDdl(dbObject, this::generateScripts);
                 }
             }
         }
@@ -375,10 +357,20 @@ public class DdlGenerator {
         }
     }
 
-    private String removeSchemaNameInDdl(String ddl) {
-        String regexp = String.format("\"%s\".", appArguments.getDbCredentials(OWNER).getSchemaName().toUpperCase());
-        ddl = ddl.replaceAll(regexp, "");
-        return ddl;
+    private void generateScripts(DbObject dbObject) {
+        if (dbObject.getType() == PACKAGE_BODY) {
+            generatePackageBodyScripts(dbObject);
+        } else if (dbObject.getType() == PACKAGE_SPEC) {
+            generatePackageSpecScripts(dbObject);
+        } else if (dbObject.getType() == TABLE) {
+            generateTableScripts(dbObject);
+        } else if (dbObject.getType() == VIEW) {
+            generateViewScripts(dbObject);
+        } else if (dbObject.getType() == TYPE_BODY) {
+            generateTypeBodyScripts(dbObject);
+        } else if (dbObject.getType() == TYPE_SPEC) {
+            generateTypeSpecScripts(dbObject);
+        }
     }
 
     private boolean isExcludeObject(String objectName, String[] excludedObjects) {
@@ -395,7 +387,7 @@ public class DdlGenerator {
         boolean isDeletePkgOrTypeSpecWithBody = false;
         File fileDir = null;
         String fileName = null;
-        if (!ddlDao.isExist(dbObject.getName(), dbObject.getType())) {
+        if (!dictionary.isExist(dbObject.getName(), dbObject.getType())) {
             if (dbObject.getType() == PACKAGE_BODY) {
                 fileDir = new File(appArguments.getDdlsDirectory() + PACKAGES_DDL_DIRECTORY_NAME);
                 fileName = dbObject.getName() + ".sql";
@@ -435,32 +427,104 @@ public class DdlGenerator {
         File[] filteredFiles = fileDir.listFiles(filter);
         if (filteredFiles != null && filteredFiles.length > 0) {
             for (File file : filteredFiles) {
-                try {
-                    FileUtils.forceDeleteOnExit(file);
-                } catch (IOException e) {
-                    throw new RuntimeException("Can't delete ddl file [" + file.getAbsolutePath() + "]", e);
-                }
+                deleteDdlFile(file);
+            }
+        }
+    }
+
+    private void deleteDdlFile(File file) {
+        try {
+            if (Files.deleteIfExists(file.toPath())) {
+                ddlFileWriter.markDeleted();
             }
+        } catch (IOException e) {
+            throw new RuntimeException("Can't delete ddl file [" + file.getAbsolutePath() + "]", e);
         }
     }
 
+    /**
+     * Regenerates DDL only for the objects changed since the previous export recorded in the ddl manifest,
+     * files of the dropped objects are deleted. Without the manifest DDL of all objects is streamed:
+     * each object is formatted and handed to the writer as soon as it's fetched.
+     */
     public void generateDllsForAllDbObjects() {
-        generateDdls(ddlDao.extractAllDbObjectsWithoutDdl(), true);
+        DdlManifest manifest = DdlManifest.load(appArguments.getDdlsDirectory(), ddlDao.readDbIdentity());
+        List<DbObjectState> states = ddlDao.readAllDbObjectsState();
+        ddlManifest = manifest;
+        try {
+            if (manifest.isEmpty()) {
+                // objects created after the states were read get no entry and are exported again next time
+                Map<DbObject, DbObjectState> stateByDbObject = new HashMap<>();
+                states.forEach(state -> stateByDbObject.put(state.getDbObject(), state));
+                Consumer<DbObject> export = generateScriptsWithProgress(ddlDao.countAllDbObjectsWithOwnDdl());
+                withDdlFileWriter(() -> ddlDao.extractAllDbObjectsDdl(dbObject -> {
+                    DbObjectState state = stateByDbObject.get(dbObject);
+                    if (state != null) {
+                        manifest.put(state);
+                    }
+                    export.accept(dbObject);
+                }));
+            } else {
+                generateDdlsForChangedDbObjects(manifest, states);
+            }
+        } finally {
+            ddlManifest = null;
+        }
+        manifest.save();
     }
 
-    private String sortConstraintsInTableDdl(String sourceDdlScript) {
+    private void generateDdlsForChangedDbObjects(DdlManifest manifest, List<DbObjectState> states) {
+        Set<DbObject> existingDbObjects = new HashSet<>();
+        List<DbObject> changedDbObjects = new ArrayList<>();
+        for (DbObjectState state : states) {
+            existingDbObjects.add(state.getDbObject());
+            if (!manifest.isUpToDate(state)) {
+                manifest.put(state);
+                changedDbObjects.add(state.getDbObject());
+            }
+        }
+        logger.info("DDL is up to date for {} of {} objects", GREEN, states.size() - changedDbObjects.size(),
+                states.size());
+
+        withDdlFileWriter(() -> {
+            for (DdlManifest.Entry entry : new ArrayList<>(manifest.getEntries())) {
+                if (!existingDbObjects.contains(new DbObject(entry.name, entry.type))) {
+                    File file = manifest.getFile(entry);
+                    if (file != null && file.exists()) {
+                        logger.info("Deleting DDL of dropped {} [{}]", GREEN, entry.type.getName(), entry.name);
+                        deleteDdlFile(file);
+                    }
+                    manifest.remove(entry);
+                }
+            }
+            ddlDao.extractDdls(changedDbObjects, generateScriptsWithProgress(changedDbObjects.size()));
+        });
+    }
+
+    private Consumer<DbObject> generateScriptsWithProgress(int total) {
+        int[] exported = {0};
+        return dbObject -> {
+            generateScripts(dbObject);
+            exported[0]++;
+            if (exported[0] % EXPORT_PROGRESS_STEP == 0 || exported[0] == total) {
+                logger.info("Exported DDL of {} of {} objects", GREEN, exported[0], total);
+            }
+        };
+    }
+
+    private static String sortConstraintsInTableDdl(String sourceDdlScript) {
         Matcher constraintsBlockMatcher = CONSTRAINTS_BLOCK_PATTERN.matcher(sourceDdlScript);
         if (constraintsBlockMatcher.find()) {
             String block = constraintsBlockMatcher.group(1);
-            String[] constraints = block.split(",\\s*\\n");
+            String[] constraints = CONSTRAINTS_SEPARATOR_PATTERN.split(block);
             sourceDdlScript = sourceDdlScript.replace(block, "@");
 
             String primaryKey = null;
-            Map<String, String> constraintByName = new TreeMap<>(CONSTRAINT_COMPARATOR);
+            Map<ConstraintSortKey, String> constraintByName = new TreeMap<>();
             for (String constraintLine : constraints) {
                 Matcher constraintNameMatcher = CONSTRAINT_NAME_PATTERN.matcher(constraintLine);
                 if (constraintNameMatcher.find()) {
-                    constraintByName.put(constraintNameMatcher.group(1), constraintLine.replaceAll("\r", ""));
+                    constraintByName.put(new ConstraintSortKey(constraintNameMatcher.group(1)), constraintLine.replace("\r", ""));
 
                 } else if (primaryKey == null) {
                     primaryKey = findPrimaryKey(constraintLine);
@@ -472,16 +536,16 @@ public class DdlGenerator {
         return sourceDdlScript;
     }
 
-    private String findPrimaryKey(String constraintLine) {
+    private static String findPrimaryKey(String constraintLine) {
         String primaryKey = null;
         Matcher primaryKeyMatcher = PRIMARY_KEY_LINE_PATTERN.matcher(constraintLine);
         if (primaryKeyMatcher.find()) {
-            primaryKey =  constraintLine.replaceAll("\r", "");
+            primaryKey =  constraintLine.replace("\r", "");
         }
         return primaryKey;
     }
 
-    private String getSortedConstraintBlockDdl(String primaryKey, Map<String, String> constraintByName) {
+    private static String getSortedConstraintBlockDdl(String primaryKey, Map<ConstraintSortKey, String> constraintByName) {
         StringBuilder sortedConstraintBlockDdl = new StringBuilder();
         if (StringUtils.isNotBlank(primaryKey)) {
             sortedConstraintBlockDdl.append(primaryKey);
@@ -489,7 +553,7 @@ public class DdlGenerator {
                 sortedConstraintBlockDdl.append(",\r\n");
             }
         }
-        Iterator<Map.Entry<String, String>> iterator = constraintByName.entrySet().iterator();
+        Iterator<Map.Entry<ConstraintSortKey, String>> iterator = constraintByName.entrySet().iterator();
         while (iterator.hasNext()) {
             String constraintDdl = iterator.next().getValue();
             if (iterator.hasNext()) {
@@ -499,4 +563,38 @@ public class DdlGenerator {
         }
         return sortedConstraintBlockDdl.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * Orders constraint and column names alphabetically, names which differ only in numbers are ordered by the number.
+     * Name without digits and the number are computed once instead of on each comparison.
+     */
+    private static class ConstraintSortKey implements Comparable<ConstraintSortKey> {
+        private final String name;
+        private final String nameWithoutNum;
+        private final int num;
+
+        ConstraintSortKey(String name) {
+            this.name = name;
+            StringBuilder nameWithoutNum = new StringBuilder(name.length());
+            StringBuilder num = new StringBuilder();
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    num.append(c);
+                } else {
+                    nameWithoutNum.append(c);
+                }
+            }
+            this.nameWithoutNum = nameWithoutNum.toString();
+            this.num = num.isEmpty() ? 0 : Integer.parseInt(num.toString());
+        }
+
+        @Override
+        public int compareTo(ConstraintSortKey other) {
+            if (nameWithoutNum.equalsIgnoreCase(other.nameWithoutNum)) {
+                return num - other.num;
+            }
+            return name.compareTo(other.name);
+        }
+    }
+}
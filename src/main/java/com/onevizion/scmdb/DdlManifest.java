@@ -0,0 +1,178 @@
+package com.onevizion.scmdb;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onevizion.scmdb.vo.DbObject;
+import com.onevizion.scmdb.vo.DbObjectState;
+import com.onevizion.scmdb.vo.DbObjectType;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * State of the previous full DDL export kept in the ddl directory: last DDL time of every exported object
+ * and hash of the file generated for it. Next export regenerates only the objects whose state moved
+ * or whose file was changed or removed since.
+ */
+public class DdlManifest {
+    public static final String FILE_NAME = ".ddl_manifest.json";
+    private static final int VERSION = 2;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final File ddlDirectory;
+    // database and schema the ddl was exported from
+    private final String identity;
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    private DdlManifest(File ddlDirectory, String identity) {
+        this.ddlDirectory = ddlDirectory.getAbsoluteFile();
+        this.identity = identity;
+    }
+
+    /**
+     * Reads manifest from the ddl directory. Missing, unreadable or foreign manifest results in the empty one:
+     * the manifest written for another database, even with the same schema name, doesn't describe the files.
+     */
+    public static DdlManifest load(File ddlDirectory, String identity) {
+        DdlManifest manifest = new DdlManifest(ddlDirectory, identity);
+        File file = new File(ddlDirectory, FILE_NAME);
+        if (!file.isFile()) {
+            return manifest;
+        }
+        try {
+            Content content = MAPPER.readValue(file, Content.class);
+            if (content.version == VERSION && identity.equals(content.identity) && content.entries != null) {
+                content.entries.forEach(entry -> manifest.entries.put(key(entry.type, entry.name), entry));
+            }
+        } catch (IOException e) {
+            manifest.entries.clear();
+        }
+        return manifest;
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    public Collection<Entry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * Object is up to date if its state didn't move since the previous export and its file is untouched
+     */
+    public boolean isUpToDate(DbObjectState state) {
+        Entry entry = entries.get(key(state.getDbObject()));
+        if (entry == null || !state.getLastDdlTime().equals(entry.lastDdlTime)
+                || state.getDependentsCount() != entry.dependentsCount) {
+            return false;
+        }
+        return entry.file == null || entry.hash.equals(hashOfFile(new File(ddlDirectory, entry.file)));
+    }
+
+    public void put(DbObjectState state) {
+        Entry entry = entries.computeIfAbsent(key(state.getDbObject()), key -> new Entry());
+        entry.name = state.getDbObject().getName();
+        entry.type = state.getDbObject().getType();
+        entry.lastDdlTime = state.getLastDdlTime();
+        entry.dependentsCount = state.getDependentsCount();
+    }
+
+    public void putFile(DbObject dbObject, File file, String ddl) {
+        putFileHash(dbObject, file, DigestUtils.sha1Hex(ddl.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Same as {@link #putFile(DbObject, File, String)} for the DDL streamed to the file, its hash is computed while writing
+     */
+    public void putFileHash(DbObject dbObject, File file, String hash) {
+        Entry entry = entries.get(key(dbObject));
+        if (entry != null) {
+            entry.file = ddlDirectory.toPath().normalize()
+                                     .relativize(file.toPath().toAbsolutePath().normalize())
+                                     .toString();
+            entry.hash = hash;
+        }
+    }
+
+    public void remove(Entry entry) {
+        entries.remove(key(entry.type, entry.name));
+    }
+
+    public File getFile(Entry entry) {
+        return entry.file == null ? null : new File(ddlDirectory, entry.file);
+    }
+
+    public void save() {
+        Content content = new Content();
+        content.version = VERSION;
+        content.identity = identity;
+        content.entries = new ArrayList<>(entries.values());
+
+        File file = new File(ddlDirectory, FILE_NAME);
+        Path tmpFile = null;
+        try {
+            FileUtils.forceMkdir(ddlDirectory);
+            tmpFile = Files.createTempFile(ddlDirectory.toPath(), FILE_NAME, ".tmp");
+            MAPPER.writerWithDefaultPrettyPrinter().writeValue(tmpFile.toFile(), content);
+            try {
+                Files.move(tmpFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Can't write ddl manifest [" + file.getAbsolutePath() + "]", e);
+        } finally {
+            if (tmpFile != null) {
+                tmpFile.toFile().delete();
+            }
+        }
+    }
+
+    private static String hashOfFile(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (InputStream inputStream = new FileInputStream(file)) {
+            return DigestUtils.sha1Hex(inputStream);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String key(DbObject dbObject) {
+        return key(dbObject.getType(), dbObject.getName());
+    }
+
+    private static String key(DbObjectType type, String name) {
+        return type + ":" + name;
+    }
+
+    public static class Entry {
+        public String name;
+        public DbObjectType type;
+        public String lastDdlTime;
+        public int dependentsCount;
+        public String file;
+        public String hash;
+    }
+
+    static class Content {
+        public int version;
+        public String identity;
+        public List<Entry> entries;
+    }
+}
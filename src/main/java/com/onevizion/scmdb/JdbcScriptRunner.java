@@ -0,0 +1,220 @@
+package com.onevizion.scmdb;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.BatchUpdateException;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Executes statements split by {@link SqlStatementSplitter} directly on the connection, with the semantics of the
+ * SQLcl script wrappers: server output is enabled and printed after each statement, errors are reported as SQLcl
+ * reports them and either stop the script (WHENEVER SQLERROR EXIT) or are skipped (WHENEVER SQLERROR CONTINUE).
+ * As with SQL*Plus EXIT, pending changes are committed when the script ends.
+ * <p>
+ * With insert batching, runs of same-shape single-row inserts are executed as JDBC batches of bound literals.
+ * A batch which fails is rolled back and its inserts are executed one by one, so the error is reported
+ * for the original statement and line.
+ */
+class JdbcScriptRunner {
+    private static final int MIN_INSERT_BATCH = 2;
+    private static final int MAX_INSERT_BATCH = 1000;
+    private static final String ENABLE_SERVER_OUTPUT = "begin dbms_output.enable(null); end;";
+    private static final String DISABLE_SERVER_OUTPUT = "begin dbms_output.disable; end;";
+    private static final String READ_SERVER_OUTPUT = """
+            declare
+              v_line   varchar2(32767);
+              v_status integer;
+              v_lines  clob;
+            begin
+              loop
+                dbms_output.get_line(v_line, v_status);
+                exit when v_status <> 0;
+                v_lines := v_lines || v_line || chr(10);
+              end loop;
+              ? := v_lines;
+            end;""";
+
+    private final Connection connection;
+    private final PrintStream out;
+    private final boolean failOnError;
+    private final CallableStatement readServerOutput;
+    private boolean errorEncountered;
+    private SqlStatement lastCompleted;
+    private volatile SqlStatement current;
+
+    JdbcScriptRunner(Connection connection, OutputStream outputStream, boolean failOnError) throws SQLException {
+        this.connection = connection;
+        this.out = new PrintStream(outputStream);
+        this.failOnError = failOnError;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(ENABLE_SERVER_OUTPUT);
+        }
+        readServerOutput = connection.prepareCall(READ_SERVER_OUTPUT);
+        readServerOutput.registerOutParameter(1, Types.CLOB);
+    }
+
+    /**
+     * @return false if execution was stopped on error, the rest of the script must not be executed then
+     */
+    boolean run(List<SqlStatement> statements, boolean batchInserts) throws SQLException {
+        int i = 0;
+        while (i < statements.size()) {
+            if (batchInserts) {
+                List<BatchableInsert> inserts = BatchableInsert.findRun(statements, i);
+                if (inserts.size() >= MIN_INSERT_BATCH) {
+                    if (!executeBatches(inserts)) {
+                        return false;
+                    }
+                    i += inserts.size();
+                    continue;
+                }
+            }
+            if (!execute(statements.get(i)) && failOnError) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    private boolean executeBatches(List<BatchableInsert> inserts) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(inserts.get(0).getTemplate())) {
+            for (int from = 0; from < inserts.size(); from += MAX_INSERT_BATCH) {
+                List<BatchableInsert> batch = inserts.subList(from, Math.min(from + MAX_INSERT_BATCH, inserts.size()));
+                if (!executeBatch(statement, batch)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean executeBatch(PreparedStatement statement, List<BatchableInsert> batch) throws SQLException {
+        current = batch.get(0).getStatement();
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            for (BatchableInsert insert : batch) {
+                insert.bind(statement);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            lastCompleted = batch.get(batch.size() - 1).getStatement();
+            out.println();
+            out.println(batch.size() + " rows inserted.");
+            return true;
+        } catch (BatchUpdateException e) {
+            statement.clearBatch();
+            connection.rollback(savepoint);
+            for (BatchableInsert insert : batch) {
+                if (!execute(insert.getStatement()) && failOnError) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            printServerOutput();
+        }
+    }
+
+    private boolean execute(SqlStatement sqlStatement) throws SQLException {
+        current = sqlStatement;
+        try (Statement statement = connection.createStatement()) {
+            statement.setEscapeProcessing(false);
+            if (statement.execute(sqlStatement.getSql())) {
+                printRows(statement.getResultSet());
+            } else {
+                out.println();
+                out.println(sqlStatement.getFeedback(statement.getUpdateCount()));
+                if (statement.getWarnings() != null) {
+                    out.println();
+                    out.println("Errors: check compiler log");
+                }
+            }
+            lastCompleted = sqlStatement;
+            return true;
+        } catch (SQLException e) {
+            errorEncountered = true;
+            out.println();
+            out.println("Error starting at line : " + sqlStatement.getLineNumber() + " in command -");
+            out.println(sqlStatement.getSql());
+            out.println("Error report -");
+            out.println(e.getMessage());
+            return false;
+        } finally {
+            printServerOutput();
+        }
+    }
+
+    private void printRows(ResultSet resultSet) throws SQLException {
+        try (resultSet) {
+            int columnCount = resultSet.getMetaData().getColumnCount();
+            boolean empty = true;
+            while (resultSet.next()) {
+                StringJoiner row = new StringJoiner(" ");
+                for (int i = 1; i <= columnCount; i++) {
+                    String value = resultSet.getString(i);
+                    row.add(value == null ? "" : value);
+                }
+                out.println(row);
+                empty = false;
+            }
+            if (empty) {
+                out.println();
+                out.println("no rows selected");
+            }
+        }
+    }
+
+    private void printServerOutput() throws SQLException {
+        readServerOutput.execute();
+        Clob lines = readServerOutput.getClob(1);
+        if (lines != null) {
+            try {
+                out.print(lines.getSubString(1, (int) lines.length()));
+            } finally {
+                lines.free();
+            }
+        }
+    }
+
+    boolean isErrorEncountered() {
+        return errorEncountered;
+    }
+
+    /**
+     * Statement being executed, first statement of the batch being executed, can be read from other threads
+     */
+    SqlStatement getCurrent() {
+        return current;
+    }
+
+    /**
+     * Last statement executed without an error, null if there is none
+     */
+    SqlStatement getLastCompleted() {
+        return lastCompleted;
+    }
+
+    /**
+     * Commits pending changes, disables server output of the pooled connection and flushes the output
+     */
+    void finish() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            connection.commit();
+            statement.execute(DISABLE_SERVER_OUTPUT);
+        } finally {
+            readServerOutput.close();
+            out.flush();
+        }
+    }
+}
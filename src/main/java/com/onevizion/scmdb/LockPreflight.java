@@ -0,0 +1,127 @@
+package com.onevizion.scmdb;
+
+import com.onevizion.scmdb.dao.SessionDaoOra;
+import com.onevizion.scmdb.jfr.LockWaitEvent;
+import com.onevizion.scmdb.vo.DbObject;
+import com.onevizion.scmdb.vo.LockConflict;
+import com.onevizion.scmdb.vo.LockPolicy;
+import com.onevizion.scmdb.vo.SqlScript;
+import org.springframework.dao.DataAccessException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static com.onevizion.scmdb.ColorLogger.Color.GREEN;
+import static com.onevizion.scmdb.ColorLogger.Color.YELLOW;
+import static org.apache.commons.lang3.time.DurationFormatUtils.formatDurationHMS;
+
+/**
+ * Checks before a script whether other sessions hold DML locks on the tables it changes or are executing
+ * its packages and types, which makes the DDL fail with ORA-00054 or hang until ORA-04021, and acts
+ * according to the {@link LockPolicy}. Check is disabled for the rest of the run if the session views
+ * aren't accessible.
+ */
+class LockPreflight {
+    private static final long INITIAL_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final String SET_DDL_LOCK_TIMEOUT = "alter session set ddl_lock_timeout = ";
+
+    private final SessionDaoOra sessionDaoOra;
+    private final ColorLogger logger;
+    private final LockPolicy policy;
+    private final int timeoutSeconds;
+    private boolean disabled;
+
+    LockPreflight(SessionDaoOra sessionDaoOra, ColorLogger logger, LockPolicy policy, int timeoutSeconds) {
+        this.sessionDaoOra = sessionDaoOra;
+        this.logger = logger;
+        this.policy = policy;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * @param schemaName schema the script is executed in
+     * @param connection connection the script is going to be executed on
+     */
+    void check(SqlScript script, String schemaName, Connection connection) throws SQLException {
+        if (policy == LockPolicy.NONE) {
+            return;
+        }
+        if (policy == LockPolicy.DDL_LOCK_TIMEOUT) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(SET_DDL_LOCK_TIMEOUT + timeoutSeconds);
+            }
+        }
+        List<String> objectNames = ScriptHelper.getChangedDbObjects(script).stream()
+                                               .map(DbObject::getName)
+                                               .map(String::toUpperCase)
+                                               .distinct()
+                                               .toList();
+        if (disabled || objectNames.isEmpty()) {
+            return;
+        }
+
+        LockWaitEvent event = new LockWaitEvent();
+        event.begin();
+        String owner = schemaName.toUpperCase();
+        List<LockConflict> conflicts = readConflicts(owner, objectNames);
+        event.conflicts = conflicts.size();
+        if (!conflicts.isEmpty()) {
+            logger.warn("Sessions using objects changed by [{}]:", YELLOW, script.getName());
+            conflicts.forEach(conflict -> logger.warn("  {}", YELLOW, conflict));
+            if (policy == LockPolicy.WAIT) {
+                conflicts = waitForConflicts(script, owner, objectNames, conflicts);
+            }
+        }
+        event.cleared = conflicts.isEmpty();
+        event.end();
+        if (event.shouldCommit()) {
+            event.scriptName = script.getName();
+            event.policy = policy.name();
+            event.commit();
+        }
+    }
+
+    private List<LockConflict> waitForConflicts(SqlScript script, String owner, List<String> objectNames,
+                                                List<LockConflict> conflicts) {
+        Instant start = Instant.now();
+        Instant deadline = start.plusSeconds(timeoutSeconds);
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
+        while (!conflicts.isEmpty()) {
+            long remainingMillis = Duration.between(Instant.now(), deadline).toMillis();
+            if (remainingMillis <= 0) {
+                logger.warn("Objects changed by [{}] are still in use after {}, executing the script anyway", YELLOW,
+                            script.getName(), formatDurationHMS(Duration.between(start, Instant.now()).toMillis()));
+                return conflicts;
+            }
+            try {
+                Thread.sleep(Math.min(backoffMillis, remainingMillis));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return conflicts;
+            }
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+            conflicts = readConflicts(owner, objectNames);
+        }
+        logger.info("[{}] waited for locks: {}", GREEN, script.getName(),
+                    formatDurationHMS(Duration.between(start, Instant.now()).toMillis()));
+        return conflicts;
+    }
+
+    private List<LockConflict> readConflicts(String owner, List<String> objectNames) {
+        if (disabled) {
+            return List.of();
+        }
+        try {
+            return sessionDaoOra.readLockConflicts(owner, objectNames);
+        } catch (DataAccessException e) {
+            logger.warn("Lock check disabled: [{}]", YELLOW, e.getMessage());
+            disabled = true;
+            return List.of();
+        }
+    }
+}
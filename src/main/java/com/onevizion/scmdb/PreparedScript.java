@@ -0,0 +1,115 @@
+package com.onevizion.scmdb;
+
+import com.onevizion.scmdb.vo.SqlScript;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Script ready for execution: either split into statements for the direct JDBC execution or, when the script
+ * needs SQL*Plus features, with everything SQLcl needs staged on disk: the script file itself and the wrapper
+ * selected for it. Created by {@link SqlScriptExecutor#prepare(SqlScript)}, possibly ahead of time
+ * by {@link ScriptPrefetcher}.
+ */
+public class PreparedScript {
+    private final SqlScript script;
+    private final File scriptFile;
+    private final File wrapperScriptFile;
+    private final boolean packageScript;
+    private final List<SqlStatement> statements;
+    private final boolean batchInserts;
+    private int firstStatement;
+    private int completedStatements;
+    private boolean internal;
+
+    PreparedScript(SqlScript script, File scriptFile, File wrapperScriptFile, boolean packageScript) {
+        this.script = script;
+        this.scriptFile = scriptFile;
+        this.wrapperScriptFile = wrapperScriptFile;
+        this.packageScript = packageScript;
+        this.statements = null;
+        this.batchInserts = false;
+    }
+
+    PreparedScript(SqlScript script, List<SqlStatement> statements, boolean packageScript, boolean batchInserts) {
+        this.script = script;
+        this.scriptFile = null;
+        this.wrapperScriptFile = null;
+        this.packageScript = packageScript;
+        this.statements = statements;
+        this.batchInserts = batchInserts;
+    }
+
+    public SqlScript getScript() {
+        return script;
+    }
+
+    File getScriptFile() {
+        return scriptFile;
+    }
+
+    File getWrapperScriptFile() {
+        return wrapperScriptFile;
+    }
+
+    boolean isPackageScript() {
+        return packageScript;
+    }
+
+    /**
+     * Statements for the direct JDBC execution, null if the script must be executed with SQLcl
+     */
+    List<SqlStatement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Runs of same-shape inserts should be executed as JDBC batches
+     */
+    boolean isBatchInserts() {
+        return batchInserts;
+    }
+
+    /**
+     * Script of scmdb itself (e.g. creation of its tables) rather than a script from the scripts directory
+     */
+    boolean isInternal() {
+        return internal;
+    }
+
+    void setInternal(boolean internal) {
+        this.internal = internal;
+    }
+
+    /**
+     * Index of the statement the execution starts from, not 0 when a failed script is resumed from its checkpoint
+     */
+    int getFirstStatement() {
+        return firstStatement;
+    }
+
+    void setFirstStatement(int firstStatement) {
+        this.firstStatement = firstStatement;
+        this.completedStatements = firstStatement;
+    }
+
+    /**
+     * Number of the leading statements completed when the JDBC execution stopped
+     */
+    int getCompletedStatements() {
+        return completedStatements;
+    }
+
+    void setCompletedStatements(int completedStatements) {
+        this.completedStatements = completedStatements;
+    }
+
+    /**
+     * Removes staged temporary files of the script which won't be executed
+     */
+    void discard() {
+        if (wrapperScriptFile != null) {
+            wrapperScriptFile.delete();
+        }
+    }
+}
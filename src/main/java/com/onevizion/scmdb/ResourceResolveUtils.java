@@ -27,7 +27,7 @@ public class ResourceResolveUtils {
     }
 
     public static boolean containsClassPathScripts() {
-        return !resolveClassPathScriptResources().isEmpty();
+        return ScriptManifest.exists() || !resolveClassPathScriptResources().isEmpty();
     }
 
     private static List<Resource> resolveClassPathScriptResources() {
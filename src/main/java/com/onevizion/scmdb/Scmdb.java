@@ -2,6 +2,7 @@ package com.onevizion.scmdb;
 
 import com.onevizion.scmdb.exception.ScmdbException;
 import com.onevizion.scmdb.facade.DbScriptFacade;
+import com.onevizion.scmdb.jfr.FlightRecording;
 import oracle.dbtools.db.DBUtil;
 import oracle.ucp.jdbc.PoolDataSource;
 import oracle.ucp.jdbc.PoolDataSourceImpl;
@@ -30,6 +31,9 @@ public class Scmdb {
 
             AppArguments appArguments = ctx.getBean(AppArguments.class);
             appArguments.parse(args, !ResourceResolveUtils.containsClassPathScripts());
+            if (appArguments.getJfrFile() != null) {
+                FlightRecording.start(appArguments.getJfrFile());
+            }
 
             DbScriptFacade sqlScriptsFacade = ctx.getBean(DbScriptFacade.class);
             sqlScriptsFacade.init();
@@ -2,6 +2,7 @@ package com.onevizion.scmdb;
 
 import com.onevizion.scmdb.vo.DbObject;
 import com.onevizion.scmdb.vo.DbObjectType;
+import com.onevizion.scmdb.vo.SqlScript;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -9,6 +10,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class ScriptHelper {
+    public static final String BATCH_INSERTS_DIRECTIVE = "scmdb:batch-inserts";
 
     public static String removeSpecialFromScriptText(String scriptText) {
         // Remove SQL single-line comments (-- ...)
@@ -24,6 +26,17 @@ public class ScriptHelper {
         return scriptText.toLowerCase();
     }
 
+    /**
+     * Objects changed by the script, taken from the manifest when it's known there
+     */
+    public static List<DbObject> getChangedDbObjects(SqlScript script) {
+        if (script.getChangedDbObjects() != null) {
+            return script.getChangedDbObjects();
+        }
+        script.ensureContentLoaded();
+        return findChangedDbObjectsInScriptText(removeSpecialFromScriptText(script.getText()));
+    }
+
     public static List<DbObject> findChangedDbObjectsInScriptText(String scriptText) {
         List<DbObject> dbObjects = new ArrayList<>();
         Matcher matcher;
@@ -43,6 +56,25 @@ public class ScriptHelper {
         return dbObjects;
     }
 
+    /**
+     * Checks the comment lines at the top of the script for the "-- scmdb:batch-inserts" directive
+     */
+    public static boolean hasBatchInsertsDirective(String scriptText) {
+        for (String line : scriptText.split("\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (!trimmed.startsWith("--")) {
+                return false;
+            }
+            if (trimmed.substring(2).trim().equalsIgnoreCase(BATCH_INSERTS_DIRECTIVE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static boolean isPackageScript(String scriptText) {
         if (scriptText == null || scriptText.isEmpty()) {
             return false;
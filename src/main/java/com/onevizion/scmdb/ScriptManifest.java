@@ -0,0 +1,79 @@
+package com.onevizion.scmdb;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onevizion.scmdb.vo.DbObject;
+import com.onevizion.scmdb.vo.ScriptManifestEntry;
+import com.onevizion.scmdb.vo.SqlScript;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Manifest of the scripts bundled in the jar. It's generated by the build (see {@link #main(String[])})
+ * so that at runtime the script catalog is built without classpath scanning and hashing of every script.
+ */
+public class ScriptManifest {
+    public static final String SCRIPTS_LOCATION = "scripts/";
+    public static final String MANIFEST_LOCATION = SCRIPTS_LOCATION + "scripts-manifest.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    public static boolean exists() {
+        return new ClassPathResource(MANIFEST_LOCATION).exists();
+    }
+
+    public static List<ScriptManifestEntry> read() {
+        try (InputStream inputStream = new ClassPathResource(MANIFEST_LOCATION).getInputStream()) {
+            return MAPPER.readValue(inputStream, new TypeReference<>() {});
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read scripts manifest [" + MANIFEST_LOCATION + "]", e);
+        }
+    }
+
+    public static ClassPathResource getScriptResource(ScriptManifestEntry entry) {
+        return new ClassPathResource(SCRIPTS_LOCATION + entry.getName());
+    }
+
+    /**
+     * Generates manifest for the scripts in the given classes directory. Does nothing if there are no scripts.
+     */
+    public static void main(String[] args) throws IOException {
+        File classesDir = new File(args[0]);
+        File scriptsDir = new File(classesDir, SCRIPTS_LOCATION);
+        File[] scriptFiles = scriptsDir.listFiles((dir, name) -> name.endsWith(".sql"));
+        if (scriptFiles == null || scriptFiles.length == 0) {
+            return;
+        }
+        Arrays.sort(scriptFiles, Comparator.comparing(File::getName));
+
+        List<ScriptManifestEntry> entries = new ArrayList<>();
+        for (File scriptFile : scriptFiles) {
+            SqlScript script = SqlScript.create(new FileSystemResource(scriptFile));
+
+            ScriptManifestEntry entry = new ScriptManifestEntry();
+            entry.setName(script.getName());
+            entry.setFileHash(script.getFileHash());
+            entry.setSize(scriptFile.length());
+            entry.setTs(script.getTs());
+            entry.setSchemaType(script.getSchemaType());
+            entry.setType(script.getType());
+            entry.setOrderNumber(script.getOrderNumber());
+            String normalizedText = ScriptHelper.removeSpecialFromScriptText(script.getText());
+            entry.setChangedDbObjects(new ArrayList<>(new LinkedHashSet<DbObject>(
+                    ScriptHelper.findChangedDbObjectsInScriptText(normalizedText))));
+            entries.add(entry);
+        }
+
+        MAPPER.writerWithDefaultPrettyPrinter().writeValue(new File(classesDir, MANIFEST_LOCATION), entries);
+    }
+}
@@ -0,0 +1,85 @@
+package com.onevizion.scmdb;
+
+import com.onevizion.scmdb.vo.SqlScript;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepares next scripts in background while the current one is being executed in the database:
+ * reads the content, classifies the script and stages its wrapper. Scripts are returned strictly in the given order.
+ */
+public class ScriptPrefetcher implements AutoCloseable {
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+
+    private final SqlScriptExecutor scriptExecutor;
+    private final Iterator<SqlScript> scripts;
+    private final int depth;
+    private final Deque<Future<PreparedScript>> preparedScripts = new ArrayDeque<>();
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "scmdb-script-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    ScriptPrefetcher(SqlScriptExecutor scriptExecutor, List<SqlScript> scripts, int depth) {
+        this.scriptExecutor = scriptExecutor;
+        this.scripts = scripts.iterator();
+        this.depth = depth;
+        fill();
+    }
+
+    public boolean hasNext() {
+        return !preparedScripts.isEmpty();
+    }
+
+    public PreparedScript next() {
+        Future<PreparedScript> next = preparedScripts.poll();
+        fill();
+        try {
+            return next.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while preparing script", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Unable to prepare script", e.getCause());
+        }
+    }
+
+    private void fill() {
+        while (preparedScripts.size() < depth && scripts.hasNext()) {
+            SqlScript script = scripts.next();
+            preparedScripts.add(executorService.submit(() -> scriptExecutor.prepare(script)));
+        }
+    }
+
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+        try {
+            executorService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Future<PreparedScript> preparedScript : preparedScripts) {
+            if (preparedScript.isDone() && !preparedScript.isCancelled()) {
+                try {
+                    preparedScript.get().discard();
+                } catch (InterruptedException | ExecutionException ignored) {
+                    // nothing was staged for the script
+                }
+            }
+        }
+        preparedScripts.clear();
+    }
+}
@@ -0,0 +1,172 @@
+package com.onevizion.scmdb;
+
+import com.onevizion.scmdb.dao.SessionDaoOra;
+import com.onevizion.scmdb.jfr.ScriptProgressEvent;
+import com.onevizion.scmdb.vo.SessionProgress;
+import org.springframework.dao.DataAccessException;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.StringJoiner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.onevizion.scmdb.ColorLogger.Color.CYAN;
+import static com.onevizion.scmdb.ColorLogger.Color.YELLOW;
+import static org.apache.commons.lang3.time.DurationFormatUtils.formatDurationHMS;
+
+/**
+ * Samples the session executing a script from a separate pooled connection at a fixed interval and reports
+ * the current statement, the wait and the long operation with its ETA to the console and the flight recording.
+ * The session is identified by instance, SID and serial#, as the pooled connection may be opened on another
+ * RAC instance and the SID may be reused once the session ends.
+ * Nothing is reported for scripts which finish within the interval. Monitoring stops with a warning
+ * if the session views aren't accessible.
+ */
+class ScriptProgressMonitor implements AutoCloseable {
+    private static final String READ_SESSION = "select sys_context('USERENV', 'INSTANCE'), sid, serial#" +
+            " from v$session where sid = sys_context('USERENV', 'SID')";
+    private static final int SQL_TEXT_LENGTH = 100;
+
+    private final SessionDaoOra sessionDaoOra;
+    private final ColorLogger logger;
+    private final String scriptName;
+    private final int instId;
+    private final int sid;
+    private final int serial;
+    private final Instant start = Instant.now();
+    private volatile ScheduledFuture<?> sampling;
+    private volatile JdbcScriptRunner runner;
+    private volatile boolean closed;
+
+    private ScriptProgressMonitor(SessionDaoOra sessionDaoOra, ColorLogger logger, String scriptName, int instId,
+                                  int sid, int serial) {
+        this.sessionDaoOra = sessionDaoOra;
+        this.logger = logger;
+        this.scriptName = scriptName;
+        this.instId = instId;
+        this.sid = sid;
+        this.serial = serial;
+    }
+
+    /**
+     * Single daemon thread sampling the sessions of all the scripts of the run
+     */
+    static ScheduledExecutorService createScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scmdb-progress-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts monitoring of the session of the connection the script is going to be executed on
+     */
+    static ScriptProgressMonitor start(Connection connection, SessionDaoOra sessionDaoOra, ColorLogger logger,
+                                       ScheduledExecutorService scheduler, String scriptName, int intervalSeconds)
+            throws SQLException {
+        ScriptProgressMonitor monitor;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(READ_SESSION)) {
+            resultSet.next();
+            monitor = new ScriptProgressMonitor(sessionDaoOra, logger, scriptName, resultSet.getInt(1),
+                                                resultSet.getInt(2), resultSet.getInt(3));
+        }
+        monitor.sampling = scheduler.scheduleWithFixedDelay(monitor::poll, intervalSeconds, intervalSeconds,
+                                                            TimeUnit.SECONDS);
+        return monitor;
+    }
+
+    /**
+     * Reports the statement the runner is executing, for the scripts executed with SQLcl only the SQL is known
+     */
+    void watch(JdbcScriptRunner runner) {
+        this.runner = runner;
+    }
+
+    private void poll() {
+        SessionProgress progress;
+        try {
+            progress = sessionDaoOra.readProgress(instId, sid, serial);
+        } catch (DataAccessException e) {
+            logger.warn("Progress monitoring of [{}] stopped: [{}]", YELLOW, scriptName, e.getMessage());
+            sampling.cancel(false);
+            return;
+        }
+        if (progress == null || closed) {
+            return;
+        }
+        JdbcScriptRunner currentRunner = runner;
+        SqlStatement statement = currentRunner == null ? null : currentRunner.getCurrent();
+        logger.info("{}", CYAN, describe(progress, statement));
+        record(progress, statement);
+    }
+
+    private String describe(SessionProgress progress, SqlStatement statement) {
+        StringJoiner line = new StringJoiner(" | ");
+        line.add("[" + scriptName + "] " + formatDurationHMS(Duration.between(start, Instant.now()).toMillis()));
+        if (statement != null) {
+            line.add("line " + statement.getLineNumber());
+        }
+        if (progress.isLongOperation()) {
+            String operation = progress.getOperation() + (progress.getTarget() == null ? "" : " " + progress.getTarget()) +
+                    " " + progress.getPercentDone() + "% (" + progress.getSofar() + " of " + progress.getTotalWork() +
+                    " " + progress.getUnits() + ")";
+            if (progress.getSecondsRemaining() != null) {
+                operation += ", ETA " + formatDurationHMS(progress.getSecondsRemaining() * 1000);
+            }
+            line.add(operation);
+        }
+        if (progress.isWaiting()) {
+            String wait = "waiting " + progress.getWaitSeconds() + "s on " + progress.getEvent() +
+                    " (" + progress.getWaitClass() + ")";
+            if (progress.getBlockingSession() != null) {
+                wait += ", blocked by session " + progress.getBlockingSession();
+            }
+            line.add(wait);
+        }
+        if (progress.getSqlText() != null) {
+            String sql = progress.getSqlText().replaceAll("\\s+", " ").strip();
+            line.add(sql.length() > SQL_TEXT_LENGTH ? sql.substring(0, SQL_TEXT_LENGTH) + "..." : sql);
+        }
+        return line.toString();
+    }
+
+    private void record(SessionProgress progress, SqlStatement statement) {
+        ScriptProgressEvent event = new ScriptProgressEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.scriptName = scriptName;
+        event.statementLine = statement == null ? 0 : statement.getLineNumber();
+        event.sqlId = progress.getSqlId();
+        if (progress.isWaiting()) {
+            event.waitEvent = progress.getEvent();
+            event.waitClass = progress.getWaitClass();
+            event.waitTime = progress.getWaitSeconds();
+            event.blockingSession = progress.getBlockingSession() == null ? 0 : progress.getBlockingSession();
+        }
+        if (progress.isLongOperation()) {
+            event.operation = progress.getOperation();
+            event.percentDone = progress.getPercentDone();
+            event.timeRemaining = progress.getSecondsRemaining() == null ? 0 : progress.getSecondsRemaining();
+        }
+        event.commit();
+    }
+
+    /**
+     * Stops sampling, a sample in progress isn't reported
+     */
+    @Override
+    public void close() {
+        closed = true;
+        sampling.cancel(false);
+    }
+}
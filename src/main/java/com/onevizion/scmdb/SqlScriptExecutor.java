@@ -1,9 +1,15 @@
 package com.onevizion.scmdb;
 
+import com.onevizion.scmdb.SqlStatementSplitter.UnsupportedScriptException;
+import com.onevizion.scmdb.dao.SessionDaoOra;
 import com.onevizion.scmdb.exception.DbConnectionException;
+import com.onevizion.scmdb.exception.ScmdbException;
 import com.onevizion.scmdb.exception.ScriptExecException;
+import com.onevizion.scmdb.jfr.ScriptExecutionEvent;
 import com.onevizion.scmdb.vo.DbCnnCredentials;
 import com.onevizion.scmdb.vo.SchemaType;
+import com.onevizion.scmdb.vo.ScriptCheckpoint;
+import com.onevizion.scmdb.vo.ScriptStatus;
 import com.onevizion.scmdb.vo.SqlScript;
 import oracle.dbtools.raptor.newscriptrunner.ScriptExecutor;
 import oracle.dbtools.raptor.newscriptrunner.ScriptRunnerContext;
@@ -16,6 +22,7 @@ import org.springframework.core.io.FileSystemResource;
 import javax.sql.DataSource;
 import java.io.*;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -23,6 +30,12 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.onevizion.scmdb.ColorLogger.Color.GREEN;
 import static com.onevizion.scmdb.Scmdb.EXIT_CODE_SUCCESS;
@@ -33,14 +46,20 @@ import static oracle.dbtools.raptor.newscriptrunner.ScriptRunnerContext.ERR_ENCO
 import static org.apache.commons.lang3.time.DurationFormatUtils.formatDurationHMS;
 
 public class SqlScriptExecutor {
-    private static final String SQL_COMMAND = "@%s %s %s";
+    private static final String SQL_COMMAND = "@%s %s";
     private static final String CREATE_SQL = "create.sql";
+    private static final String CREATE_SCRIPT_OUTPUT_SQL = "create_script_output.sql";
+    private static final String CREATE_SCRIPT_RUN_SQL = "create_script_run.sql";
+    private static final String CREATE_SCRIPT_CHECKPOINT_SQL = "create_script_checkpoint.sql";
     private static final String COMPILE_SCHEMAS_SQL = "compile_schemas.sql";
     private static final String SHOW_INVALID_OBJECTS_SQL = "check_invalid_objects.sql";
-    private static final String DISABLE_JOBS_SQL = "disable_jobs.sql";
-    private static final String ENABLE_JOBS_SQL = "enable_jobs.sql";
+    private static final String ENABLE_LOCKED_COMPONENT_MODS_SQL = "enable_locked_component_mods.sql";
+    private static final String COMPILE_INVALIDS_SQL = "compile_invalids.sql";
     private static final int SCRIPT_EXIT_CODE_ERROR = 1;
     private static final int SCRIPT_EXIT_CODE_SUCCESS = 0;
+    private static final int PREFETCH_DEPTH = 2;
+    // line of the wrapper replaced with the text of the resource script
+    private static final Pattern INCLUDE_PATTERN = Pattern.compile("^--@include (\\S+)$", Pattern.MULTILINE);
 
     @Autowired
     private AppArguments appArguments;
@@ -48,6 +67,9 @@ public class SqlScriptExecutor {
     @Autowired
     private ColorLogger logger;
 
+    @Autowired
+    private SessionDaoOra sessionDaoOra;
+
     @Autowired
     private DataSource dataSource;
 
@@ -60,6 +82,12 @@ public class SqlScriptExecutor {
     @Autowired
     private DataSource pkgDataSource;
 
+    private final ClasspathScriptCache classpathScriptCache = new ClasspathScriptCache();
+    private final Map<String, List<SqlStatement>> resourceStatements = new ConcurrentHashMap<>();
+    private final Map<String, String> resourceTexts = new ConcurrentHashMap<>();
+    private LockPreflight lockPreflight;
+    private ScheduledExecutorService progressScheduler;
+
     private void executeResourceScript(String scriptFileName, String errorMessage) {
         executeResourceScript(scriptFileName, errorMessage, false);
     }
@@ -74,7 +102,23 @@ public class SqlScriptExecutor {
     }
 
     public int execute(SqlScript script) {
+        return execute(prepare(script));
+    }
+
+    /**
+     * Returns prefetcher which prepares scripts for execution in background, {@link #PREFETCH_DEPTH} scripts ahead
+     */
+    public ScriptPrefetcher prefetch(List<SqlScript> scripts) {
+        return new ScriptPrefetcher(this, scripts, PREFETCH_DEPTH);
+    }
+
+    PreparedScript prepare(SqlScript script) {
+        script.ensureContentLoaded();
         boolean isPackageScript = script.getSchemaType().isCompileInvalids() && isPackageScript(script);
+        List<SqlStatement> statements = splitForJdbc(script);
+        if (statements != null) {
+            return new PreparedScript(script, statements, isPackageScript, isBatchInserts(script));
+        }
         File scriptsDirectory = appArguments.getScriptsDirectory();
         if (scriptsDirectory == null) {
             scriptsDirectory = SystemUtils.getJavaIoTmpDir();
@@ -89,64 +133,138 @@ public class SqlScriptExecutor {
             throw new RuntimeException("Unable to get script file from resource for [" + script.getResource() + "]", e);
         }
 
+        File scriptFile = getScriptFile(script);
         File wrapperScriptFile = getTmpWrapperScript(script.getSchemaType().isCompileInvalids(),
+                                                     script.getSchemaType().isCompileInvalids() && !isPackageScript,
                                                      appArguments.isIgnoreErrors(),
                                                      workingDirectory);
-        return execute(script, wrapperScriptFile, isPackageScript);
+        return new PreparedScript(script, scriptFile, wrapperScriptFile, isPackageScript);
     }
 
-    private int execute(SqlScript script, File wrapperScriptFile, boolean isPackageScript) {
-        DbCnnCredentials cnnCredentials = appArguments.getDbCredentials(script.getSchemaType());
-        logger.info("\nExecuting script [{}] in schema [{}]. Start: {}", GREEN, script.getName(),
-                cnnCredentials.getSchemaWithUrlBeforeDot(), ZonedDateTime.now().format(ISO_TIME));
+    /**
+     * Prepares the script which stopped on error for execution from the statement following its checkpoint.
+     * Statements up to the checkpoint must be the same as when the script failed.
+     */
+    public PreparedScript prepareResume(SqlScript script, ScriptCheckpoint checkpoint) {
+        script.ensureContentLoaded();
+        List<SqlStatement> statements;
+        try {
+            statements = SqlStatementSplitter.split(script.getText());
+        } catch (UnsupportedScriptException e) {
+            throw new ScmdbException("Script [" + script.getName() + "] can't be resumed as it's executed with SQLcl: "
+                    + e.getMessage());
+        }
+        int statementNo = checkpoint.getStatementNo();
+        if (statementNo > statements.size() || (statementNo > 0
+                && !SqlStatement.getPrefixHash(statements, statementNo).equals(checkpoint.getStatementHash()))) {
+            throw new ScmdbException("Script [" + script.getName() + "] was changed before the failed statement " +
+                    (statementNo + 1) + ", it can't be resumed. Fix and execute it manually.");
+        }
+        boolean isPackageScript = script.getSchemaType().isCompileInvalids() && isPackageScript(script);
+        PreparedScript preparedScript = new PreparedScript(script, statements, isPackageScript, isBatchInserts(script));
+        preparedScript.setFirstStatement(statementNo);
+        if (statementNo < statements.size()) {
+            logger.info("Resuming script [{}] from statement {} of {} at line {}", GREEN, script.getName(),
+                        statementNo + 1, statements.size(), statements.get(statementNo).getLineNumber());
+        }
+        return preparedScript;
+    }
 
-        File scriptFile;
-        if (script.getResource().isFile()) {
-            try {
-                scriptFile = script.getResource().getFile();
-            } catch (IOException e) {
-                throw new RuntimeException("Unable to get File reference for [" + script.getResource() + "]", e);
-            }
-        } else {
-            try {
-                scriptFile = Files.createTempFile("scmdb_classpath", ".sql").toFile();
-                scriptFile.deleteOnExit();
-            } catch (IOException e) {
-                throw new RuntimeException("Unable to create temporarily file for [" + script.getResource() + "]", e);
-            }
+    /**
+     * Checkpoint of the script which stopped on error, null if the script can't be resumed:
+     * it was executed with SQLcl or its errors were ignored
+     */
+    public ScriptCheckpoint createCheckpoint(PreparedScript preparedScript) {
+        List<SqlStatement> statements = preparedScript.getStatements();
+        if (statements == null || appArguments.isIgnoreErrors()) {
+            return null;
+        }
+        int completed = preparedScript.getCompletedStatements();
+        ScriptCheckpoint checkpoint = new ScriptCheckpoint();
+        checkpoint.setName(preparedScript.getScript().getName());
+        checkpoint.setStatementNo(completed);
+        checkpoint.setStatementHash(completed == 0 ? null : SqlStatement.getPrefixHash(statements, completed));
+        return checkpoint;
+    }
 
-            try (InputStream inputStream = script.getResource().getInputStream()) {
-                FileUtils.copyInputStreamToFile(inputStream, scriptFile);
-            } catch (IOException e) {
-                throw new RuntimeException("Unable to copy resource [" + script.getResource() + "] to temporary file [" + scriptFile + "]", e);
+    private boolean isBatchInserts(SqlScript script) {
+        return appArguments.isBatchInserts() || ScriptHelper.hasBatchInsertsDirective(script.getText());
+    }
+
+    /**
+     * Splits the script for the direct JDBC execution, returns null if the script needs SQLcl
+     */
+    private List<SqlStatement> splitForJdbc(SqlScript script) {
+        if (!appArguments.isJdbcFastPath()) {
+            return null;
+        }
+        try {
+            return SqlStatementSplitter.split(script.getText());
+        } catch (UnsupportedScriptException e) {
+            logger.debug("Script [{}] will be executed with SQLcl: {}", script.getName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private File getScriptFile(SqlScript script) {
+        if (!script.getResource().isFile()) {
+            return classpathScriptCache.getScriptFile(script);
+        }
+        try {
+            return script.getResource().getFile();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to get File reference for [" + script.getResource() + "]", e);
+        }
+    }
+
+    public int execute(PreparedScript preparedScript) {
+        ScriptExecutionEvent event = new ScriptExecutionEvent();
+        event.begin();
+        int exitCode = SCRIPT_EXIT_CODE_ERROR;
+        try {
+            exitCode = executeScript(preparedScript);
+            return exitCode;
+        } finally {
+            if (event.shouldCommit()) {
+                SqlScript script = preparedScript.getScript();
+                event.scriptName = script.getName();
+                event.schema = appArguments.getDbCredentials(script.getSchemaType()).getSchemaName();
+                event.status = ScriptStatus.getByScriptExitCode(exitCode).name();
+                event.commit();
             }
         }
+    }
+
+    private int executeScript(PreparedScript preparedScript) {
+        SqlScript script = preparedScript.getScript();
+        DbCnnCredentials cnnCredentials = appArguments.getDbCredentials(script.getSchemaType());
+        logger.info("\nExecuting script [{}] in schema [{}]. Start: {}", GREEN, script.getName(),
+                cnnCredentials.getSchemaWithUrlBeforeDot(), ZonedDateTime.now().format(ISO_TIME));
 
         try (Connection connection = getConnection(script.getSchemaType(), cnnCredentials.getSchemaName());
-             ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+             ScriptProgressMonitor progressMonitor = startProgressMonitor(connection, preparedScript)) {
             connection.setAutoCommit(false);
-            ScriptExecutor executor = new ScriptExecutor(connection);
-            ScriptRunnerContext ctx = new ScriptRunnerContext();
-
-            ctx.setBaseConnection(connection);
-            ctx.setOutputStreamWrapper(new BufferedOutputStream(new TeeOutputStream(System.out, outputStream)));
-            executor.setScriptRunnerContext(ctx);
-
-            // Pass parameter: 1 = enable pkg_audit_comp (regular script), 0 = don't enable (package script)
-            String enableLockedCompsMod = (!isPackageScript && script.getSchemaType().isCompileInvalids()) ? "1" : "0";
-            executor.setStmt(String.format(SQL_COMMAND, wrapperScriptFile.getAbsolutePath(),
-                                           scriptFile.getAbsolutePath(),
-                                           enableLockedCompsMod));
+            getLockPreflight().check(script, cnnCredentials.getSchemaName(), connection);
+            BufferedOutputStream output = new BufferedOutputStream(appArguments.isScriptEcho()
+                    ? new TeeOutputStream(logger.getConsoleOutputStream(), outputStream)
+                    : outputStream);
+            boolean enableLockedCompsMod = !preparedScript.isPackageScript() && script.getSchemaType().isCompileInvalids();
 
             Instant start = Instant.now();
-            executor.run();
+            boolean errorEncountered = preparedScript.getStatements() != null
+                    ? runWithJdbc(connection, output, preparedScript, enableLockedCompsMod, progressMonitor)
+                    : runWithSqlcl(connection, output, preparedScript);
+            output.flush();
             script.setOutput(outputStream.toString());
 
-            String scriptExecutionTime = formatDurationHMS(Duration.between(start, Instant.now()).toMillis());
+            long durationMillis = Duration.between(start, Instant.now()).toMillis();
+            script.setDurationMillis(durationMillis);
+            String scriptExecutionTime = formatDurationHMS(durationMillis);
 
             logger.info("\n[{}] runtime: {}", GREEN, script.getName(), scriptExecutionTime);
 
-            return (boolean) ctx.getProperty(ERR_ENCOUNTERED) ? SCRIPT_EXIT_CODE_ERROR : SCRIPT_EXIT_CODE_SUCCESS;
+            return errorEncountered ? SCRIPT_EXIT_CODE_ERROR : SCRIPT_EXIT_CODE_SUCCESS;
         } catch (SQLException e) {
             logger.error("Error during connection DB.", e);
             return SCRIPT_EXIT_CODE_ERROR;
@@ -156,32 +274,141 @@ public class SqlScriptExecutor {
             return SCRIPT_EXIT_CODE_ERROR;
 
         } finally {
-            wrapperScriptFile.delete();
+            preparedScript.discard();
+        }
+    }
+
+    private LockPreflight getLockPreflight() {
+        if (lockPreflight == null) {
+            lockPreflight = new LockPreflight(sessionDaoOra, logger, appArguments.getLockPolicy(),
+                                              appArguments.getLockTimeoutSeconds());
+        }
+        return lockPreflight;
+    }
+
+    /**
+     * @return null if monitoring is disabled or can't be started, internal scripts aren't monitored
+     */
+    private ScriptProgressMonitor startProgressMonitor(Connection connection, PreparedScript preparedScript) {
+        if (appArguments.getProgressIntervalSeconds() == 0 || preparedScript.isInternal()) {
+            return null;
+        }
+        SqlScript script = preparedScript.getScript();
+        if (progressScheduler == null) {
+            progressScheduler = ScriptProgressMonitor.createScheduler();
+        }
+        try {
+            return ScriptProgressMonitor.start(connection, sessionDaoOra, logger, progressScheduler, script.getName(),
+                                               appArguments.getProgressIntervalSeconds());
+        } catch (SQLException e) {
+            logger.warn("Unable to monitor progress of [{}]: [{}]", ColorLogger.Color.YELLOW, script.getName(),
+                        e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return true if any statement failed
+     */
+    private boolean runWithSqlcl(Connection connection, BufferedOutputStream output, PreparedScript preparedScript) {
+        ScriptExecutor executor = new ScriptExecutor(connection);
+        ScriptRunnerContext ctx = new ScriptRunnerContext();
+
+        ctx.setBaseConnection(connection);
+        ctx.setOutputStreamWrapper(output);
+        executor.setScriptRunnerContext(ctx);
+
+        executor.setStmt(String.format(SQL_COMMAND, preparedScript.getWrapperScriptFile().getAbsolutePath(),
+                                       preparedScript.getScriptFile().getAbsolutePath()));
+        executor.run();
+        return (boolean) ctx.getProperty(ERR_ENCOUNTERED);
+    }
+
+    /**
+     * Runs the statements together with the parts of the wrapper the script needs:
+     * enabling of the locked component modifications before and compilation of invalid objects after the script.
+     * Number of the completed statements is recorded for the checkpoint.
+     *
+     * @return true if any statement failed
+     */
+    private boolean runWithJdbc(Connection connection, OutputStream output, PreparedScript preparedScript,
+                                boolean enableLockedCompsMod, ScriptProgressMonitor progressMonitor) throws SQLException {
+        JdbcScriptRunner runner = new JdbcScriptRunner(connection, output, !appArguments.isIgnoreErrors());
+        if (progressMonitor != null) {
+            progressMonitor.watch(runner);
+        }
+        try {
+            boolean completed = !enableLockedCompsMod || runner.run(getResourceStatements(ENABLE_LOCKED_COMPONENT_MODS_SQL), false);
+            if (completed) {
+                List<SqlStatement> statements = preparedScript.getStatements();
+                completed = runner.run(statements.subList(preparedScript.getFirstStatement(), statements.size()),
+                                       preparedScript.isBatchInserts());
+                preparedScript.setCompletedStatements(Math.max(preparedScript.getFirstStatement(),
+                                                               statements.indexOf(runner.getLastCompleted()) + 1));
+            }
+            if (completed && preparedScript.getScript().getSchemaType().isCompileInvalids()) {
+                runner.run(getResourceStatements(COMPILE_INVALIDS_SQL), false);
+            }
+        } finally {
+            runner.finish();
         }
+        return runner.isErrorEncountered();
     }
 
-    private File getTmpWrapperScript(boolean compileInvalids, boolean ignoreErrors, File workingDir) {
-        ClassLoader classLoader = getClass().getClassLoader();
-        URL wrapperScript;
+    private List<SqlStatement> getResourceStatements(String resourceName) {
+        return resourceStatements.computeIfAbsent(resourceName, name -> {
+            try {
+                return SqlStatementSplitter.split(getResourceText(name));
+            } catch (UnsupportedScriptException e) {
+                throw new RuntimeException("Can't read " + name + " file.", e);
+            }
+        });
+    }
+
+    private String getResourceText(String resourceName) {
+        return resourceTexts.computeIfAbsent(resourceName, name -> {
+            try (InputStream resource = getClass().getClassLoader().getResourceAsStream(name)) {
+                return new String(resource.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new RuntimeException("Can't read " + name + " file.", e);
+            }
+        });
+    }
+
+    /**
+     * Stages the wrapper with its includes replaced by the resource scripts also executed with direct JDBC,
+     * enabling of the locked component modifications is included only if requested
+     */
+    private File getTmpWrapperScript(boolean compileInvalids, boolean enableLockedCompsMod, boolean ignoreErrors,
+                                     File workingDir) {
+        String wrapperScript;
         if (compileInvalids) {
             if (ignoreErrors) {
-                wrapperScript = classLoader.getResource("compile_invalids_wrapper_not_fail_on_error.sql");
+                wrapperScript = "compile_invalids_wrapper_not_fail_on_error.sql";
             } else {
-                wrapperScript = classLoader.getResource("compile_invalids_wrapper_fail_on_error.sql");
+                wrapperScript = "compile_invalids_wrapper_fail_on_error.sql";
             }
         } else {
             if (ignoreErrors) {
-                wrapperScript = classLoader.getResource("script_wrapper_not_fail_on_error.sql");
+                wrapperScript = "script_wrapper_not_fail_on_error.sql";
             } else {
-                wrapperScript = classLoader.getResource("script_wrapper_fail_on_error.sql");
+                wrapperScript = "script_wrapper_fail_on_error.sql";
             }
         }
+        String wrapperText = INCLUDE_PATTERN.matcher(getResourceText(wrapperScript)).replaceAll(include -> {
+            String includedScript = include.group(1);
+            if (!enableLockedCompsMod && includedScript.equals(ENABLE_LOCKED_COMPONENT_MODS_SQL)) {
+                return "";
+            }
+            return Matcher.quoteReplacement(getResourceText(includedScript));
+        });
 
-        File tmpFile = new File(workingDir.getAbsolutePath(), System.currentTimeMillis() + "tmp.sql");
-        tmpFile.deleteOnExit();
-
+        File tmpFile;
         try {
-            FileUtils.copyURLToFile(wrapperScript, tmpFile);
+            // Unique name is required as wrappers of the next scripts are staged while the current one is running
+            tmpFile = Files.createTempFile(workingDir.toPath(), String.valueOf(System.currentTimeMillis()), "tmp.sql").toFile();
+            tmpFile.deleteOnExit();
+            FileUtils.writeStringToFile(tmpFile, wrapperText, StandardCharsets.UTF_8);
         } catch (IOException e) {
             throw new RuntimeException("Can't copy tmp wrapper file.", e);
         }
@@ -198,16 +425,20 @@ public class SqlScriptExecutor {
         executeResourceScript(CREATE_SQL, "Can't create DB objects used by SCMDB.");
     }
 
-    public void executeCompileSchemas() {
-        executeResourceScript(COMPILE_SCHEMAS_SQL, "Can't compile invalid objects in _user, _rpt, _pkg schemas.");
+    public void createDbScriptOutputTable() {
+        executeResourceScript(CREATE_SCRIPT_OUTPUT_SQL, "Can't create script output history table used by SCMDB.");
+    }
+
+    public void createDbScriptRunTables() {
+        executeResourceScript(CREATE_SCRIPT_RUN_SQL, "Can't create run history tables used by SCMDB.");
     }
 
-    public void disableJobs() {
-        executeResourceScript(DISABLE_JOBS_SQL, "Can't disable database jobs.");
+    public void createDbScriptCheckpointTable() {
+        executeResourceScript(CREATE_SCRIPT_CHECKPOINT_SQL, "Can't create script checkpoint table used by SCMDB.");
     }
 
-    public void enableJobs() {
-        executeResourceScript(ENABLE_JOBS_SQL, "Can't enable database jobs.");
+    public void executeCompileSchemas() {
+        executeResourceScript(COMPILE_SCHEMAS_SQL, "Can't compile invalid objects in _user, _rpt, _pkg schemas.");
     }
 
     private Connection getConnection(SchemaType schemaType, String schemaName) {
@@ -249,8 +480,10 @@ public class SqlScriptExecutor {
         sqlScript.setType(COMMIT);
         sqlScript.setSchemaType(OWNER);
 
-        File wrapperScriptFile = getTmpWrapperScript(false, false, tmpFile.getParentFile());
-        int exitCode = execute(sqlScript, wrapperScriptFile, false);
+        File wrapperScriptFile = getTmpWrapperScript(false, false, false, tmpFile.getParentFile());
+        PreparedScript preparedScript = new PreparedScript(sqlScript, tmpFile, wrapperScriptFile, false);
+        preparedScript.setInternal(true);
+        int exitCode = execute(preparedScript);
 
         tmpFile.delete();
 
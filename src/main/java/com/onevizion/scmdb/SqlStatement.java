@@ -0,0 +1,91 @@
+package com.onevizion.scmdb;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.util.List;
+
+/**
+ * Single SQL statement or PL/SQL block of a script, ready to be sent to the database as is
+ */
+class SqlStatement {
+    private static final List<String> DML_KEYWORDS = List.of("insert", "update", "delete", "merge");
+
+    private final int lineNumber;
+    private final String sql;
+    private final boolean plsql;
+    private final List<String> keywords;
+
+    SqlStatement(int lineNumber, String sql, boolean plsql, List<String> keywords) {
+        this.lineNumber = lineNumber;
+        this.sql = sql;
+        this.plsql = plsql;
+        this.keywords = keywords;
+    }
+
+    /**
+     * Line of the script where the statement starts, 1-based
+     */
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * Hash of the texts of the first statements, identifies the statements completed before a script checkpoint.
+     * Length of each text is hashed too, so statements can't be merged or split without changing the hash.
+     */
+    static String getPrefixHash(List<SqlStatement> statements, int count) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        for (SqlStatement statement : statements.subList(0, count)) {
+            hasher.putInt(statement.sql.length()).putUnencodedChars(statement.sql);
+        }
+        return hasher.hash().toString();
+    }
+
+    boolean isPlsql() {
+        return plsql;
+    }
+
+    /**
+     * Leading words of the statement in lower case
+     */
+    List<String> getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * Message printed after successful execution, worded as SQLcl does
+     */
+    String getFeedback(int updateCount) {
+        String keyword = keywords.get(0);
+        if (keyword.equals("begin") || keyword.equals("declare")) {
+            return "PL/SQL procedure successfully completed.";
+        } else if (plsql) {
+            return getPlsqlUnitName() + " compiled";
+        } else if (DML_KEYWORDS.contains(keyword)) {
+            String verb = keyword.endsWith("e") ? keyword + "d" : keyword + "ed";
+            return updateCount + (updateCount == 1 ? " row " : " rows ") + verb + ".";
+        } else if (keyword.equals("commit") || keyword.equals("rollback")) {
+            return capitalize(keyword) + " complete.";
+        }
+        return capitalize(keyword) + " succeeded.";
+    }
+
+    private String getPlsqlUnitName() {
+        for (int i = 1; i < keywords.size(); i++) {
+            if (SqlStatementSplitter.PLSQL_UNITS.contains(keywords.get(i))) {
+                boolean body = i + 1 < keywords.size() && keywords.get(i + 1).equals("body");
+                return capitalize(keywords.get(i)) + (body ? " body" : "");
+            }
+        }
+        return "PL/SQL unit";
+    }
+
+    private static String capitalize(String keyword) {
+        return Character.toUpperCase(keyword.charAt(0)) + keyword.substring(1);
+    }
+}
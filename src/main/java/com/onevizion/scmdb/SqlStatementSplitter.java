@@ -0,0 +1,274 @@
+package com.onevizion.scmdb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits script text into statements the way SQL*Plus does: SQL statements end with ";" at the end of a line
+ * or with "/" on its own line, PL/SQL blocks and units end with "/" on its own line. Quotes (including q'[...]')
+ * and comments are tracked, so terminators inside them don't split the statement.
+ * <p>
+ * Scripts which need anything beyond that (substitution variables, SQL*Plus commands, a "/" re-running
+ * the previous statement, or text where SQL*Plus and quote tracking disagree on statement boundaries)
+ * are rejected with {@link UnsupportedScriptException} and should be executed with SQLcl.
+ */
+final class SqlStatementSplitter {
+    static final Set<String> PLSQL_UNITS = Set.of("package", "procedure", "function", "trigger", "type", "library",
+                                                  "java");
+
+    private static final Set<String> SQL_KEYWORDS = Set.of("select", "with", "insert", "update", "delete", "merge",
+                                                           "create", "alter", "drop", "truncate", "grant", "revoke",
+                                                           "comment", "rename", "commit", "rollback", "savepoint",
+                                                           "lock", "analyze", "audit", "noaudit", "purge",
+                                                           "flashback", "call", "begin", "declare");
+    private static final Set<String> CREATE_MODIFIERS = Set.of("or", "replace", "editionable", "noneditionable",
+                                                               "and", "compile", "resolve", "noforce");
+    private static final int MAX_KEYWORDS = 8;
+
+    private enum Lexeme {CODE, SINGLE_QUOTE, Q_QUOTE, DOUBLE_QUOTE, BLOCK_COMMENT}
+
+    private final String[] lines;
+    private final List<SqlStatement> statements = new ArrayList<>();
+    private Lexeme lexeme = Lexeme.CODE;
+    private char qQuoteClose;
+    private StringBuilder statement;
+    private boolean statementHasCode;
+    private int statementLine;
+    private Boolean plsql;
+
+    private SqlStatementSplitter(String text) {
+        lines = text.split("\n", -1);
+    }
+
+    static List<SqlStatement> split(String text) throws UnsupportedScriptException {
+        if (text.indexOf('&') >= 0) {
+            throw new UnsupportedScriptException("substitution variables");
+        }
+        return new SqlStatementSplitter(text).split();
+    }
+
+    private List<SqlStatement> split() throws UnsupportedScriptException {
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].endsWith("\r") ? lines[i].substring(0, lines[i].length() - 1) : lines[i];
+            String trimmed = line.trim();
+
+            if (trimmed.equals("/")) {
+                if (lexeme != Lexeme.CODE) {
+                    throw new UnsupportedScriptException("\"/\" inside a quote or comment at line " + (i + 1));
+                }
+                if (statement == null || !statementHasCode) {
+                    throw new UnsupportedScriptException("\"/\" re-running the previous statement at line " + (i + 1));
+                }
+                addStatement(statement.toString());
+                continue;
+            }
+            if (statement == null) {
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                    continue;
+                }
+                statement = new StringBuilder();
+                statementHasCode = false;
+                plsql = null;
+            }
+            if (Boolean.TRUE.equals(plsql) && trimmed.equals(".")) {
+                throw new UnsupportedScriptException("\".\" ending a PL/SQL block at line " + (i + 1));
+            }
+
+            int lineStart = statement.length();
+            statement.append(line).append('\n');
+            int terminator = scanLine(line);
+            if (!statementHasCode) {
+                if (skipWhitespaceAndComments(statement, 0) == statement.length()) {
+                    // only comments so far
+                    if (lexeme == Lexeme.CODE) {
+                        statement = null;
+                    }
+                    continue;
+                }
+                statementHasCode = true;
+                statementLine = i + 1;
+                List<String> keywords = getKeywords(statement);
+                if (keywords.isEmpty() || !SQL_KEYWORDS.contains(keywords.get(0))) {
+                    throw new UnsupportedScriptException("SQL*Plus command at line " + statementLine);
+                }
+            }
+            if (Boolean.TRUE.equals(plsql) || (terminator < 0 && !trimmed.endsWith(";"))) {
+                continue;
+            }
+            if (plsql == null) {
+                plsql = isPlsql(getKeywords(statement));
+                if (plsql) {
+                    continue;
+                }
+            }
+            if (terminator < 0 || terminator != line.stripTrailing().length() - 1) {
+                throw new UnsupportedScriptException("\";\" which SQL*Plus would treat differently at line " + (i + 1));
+            }
+            addStatement(statement.substring(0, lineStart + terminator));
+        }
+        if (lexeme != Lexeme.CODE) {
+            throw new UnsupportedScriptException("unclosed quote or comment");
+        }
+        if (statement != null && statementHasCode) {
+            throw new UnsupportedScriptException("statement without terminator at line " + statementLine);
+        }
+        return statements;
+    }
+
+    /**
+     * Tracks quotes and comments of the line, returns index of the first ";" in code or -1
+     */
+    private int scanLine(String line) {
+        int terminator = -1;
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            char next = i + 1 < length ? line.charAt(i + 1) : 0;
+            switch (lexeme) {
+                case CODE -> {
+                    if (c == '-' && next == '-') {
+                        return terminator;
+                    } else if (c == '/' && next == '*') {
+                        lexeme = Lexeme.BLOCK_COMMENT;
+                        i++;
+                    } else if (c == '\'') {
+                        lexeme = Lexeme.SINGLE_QUOTE;
+                    } else if (c == '"') {
+                        lexeme = Lexeme.DOUBLE_QUOTE;
+                    } else if ((c == 'q' || c == 'Q') && next == '\'' && i + 2 < length
+                            && (i == 0 || !isWordChar(line.charAt(i - 1)) || isNationalPrefix(line, i))) {
+                        qQuoteClose = getQQuoteClose(line.charAt(i + 2));
+                        lexeme = Lexeme.Q_QUOTE;
+                        i += 2;
+                    } else if (c == ';' && terminator < 0) {
+                        terminator = i;
+                    }
+                }
+                case SINGLE_QUOTE -> {
+                    if (c == '\'') {
+                        if (next == '\'') {
+                            i++;
+                        } else {
+                            lexeme = Lexeme.CODE;
+                        }
+                    }
+                }
+                case Q_QUOTE -> {
+                    if (c == qQuoteClose && next == '\'') {
+                        lexeme = Lexeme.CODE;
+                        i++;
+                    }
+                }
+                case DOUBLE_QUOTE -> {
+                    if (c == '"') {
+                        lexeme = Lexeme.CODE;
+                    }
+                }
+                case BLOCK_COMMENT -> {
+                    if (c == '*' && next == '/') {
+                        lexeme = Lexeme.CODE;
+                        i++;
+                    }
+                }
+            }
+        }
+        return terminator;
+    }
+
+    private void addStatement(String text) throws UnsupportedScriptException {
+        List<String> keywords = getKeywords(text);
+        if (keywords.get(0).equals("with") && keywords.size() > 1
+                && (keywords.get(1).equals("function") || keywords.get(1).equals("procedure"))) {
+            throw new UnsupportedScriptException("PL/SQL declarations in the WITH clause at line " + statementLine);
+        }
+        boolean plsqlStatement = plsql != null ? plsql : isPlsql(keywords);
+        statements.add(new SqlStatement(statementLine, text.stripTrailing(), plsqlStatement, keywords));
+        statement = null;
+    }
+
+    private static boolean isPlsql(List<String> keywords) {
+        if (keywords.isEmpty()) {
+            return false;
+        }
+        if (keywords.get(0).equals("begin") || keywords.get(0).equals("declare")) {
+            return true;
+        }
+        if (!keywords.get(0).equals("create")) {
+            return false;
+        }
+        for (int i = 1; i < keywords.size(); i++) {
+            if (!CREATE_MODIFIERS.contains(keywords.get(i))) {
+                return PLSQL_UNITS.contains(keywords.get(i));
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Leading words of the statement in lower case, comments are skipped
+     */
+    private static List<String> getKeywords(CharSequence text) {
+        List<String> keywords = new ArrayList<>();
+        int i = skipWhitespaceAndComments(text, 0);
+        while (i < text.length() && isWordChar(text.charAt(i)) && keywords.size() < MAX_KEYWORDS) {
+            int start = i;
+            while (i < text.length() && isWordChar(text.charAt(i))) {
+                i++;
+            }
+            keywords.add(text.subSequence(start, i).toString().toLowerCase());
+            i = skipWhitespaceAndComments(text, i);
+        }
+        return keywords;
+    }
+
+    /**
+     * Index of the first character which isn't whitespace or a part of a comment, text length if there is none
+     */
+    private static int skipWhitespaceAndComments(CharSequence text, int from) {
+        int i = from;
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            char next = i + 1 < length ? text.charAt(i + 1) : 0;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '-' && next == '-') {
+                while (i < length && text.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && next == '*') {
+                int end = text.toString().indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else {
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isNationalPrefix(String line, int qIndex) {
+        return qIndex > 0 && (line.charAt(qIndex - 1) == 'n' || line.charAt(qIndex - 1) == 'N')
+                && (qIndex == 1 || !isWordChar(line.charAt(qIndex - 2)));
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+
+    private static char getQQuoteClose(char open) {
+        return switch (open) {
+            case '[' -> ']';
+            case '{' -> '}';
+            case '(' -> ')';
+            case '<' -> '>';
+            default -> open;
+        };
+    }
+
+    static class UnsupportedScriptException extends Exception {
+        UnsupportedScriptException(String reason) {
+            super(reason);
+        }
+    }
+}
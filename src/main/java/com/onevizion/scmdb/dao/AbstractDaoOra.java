@@ -5,6 +5,11 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map;
 
@@ -18,6 +23,27 @@ public class AbstractDaoOra {
     protected NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     private final static int LIMIT_IN_STATEMENT = 1000;
+    private final static String READ_DB_IDENTITY = "select sys_context('USERENV', 'DB_UNIQUE_NAME') || '/' ||" +
+            " sys_context('USERENV', 'CON_NAME') || '/' || sys_context('USERENV', 'CURRENT_SCHEMA') from dual";
+
+    /**
+     * Identifies the database and schema connected to, state cached between runs is valid only for the same identity
+     */
+    public String readDbIdentity() {
+        return jdbcTemplate.queryForObject(READ_DB_IDENTITY, String.class);
+    }
+
+    protected boolean isTableExist(String tableName) throws Exception {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData dbMetaData = connection.getMetaData();
+            ResultSet rs = dbMetaData.getTables(null, connection.getSchema(), tableName,
+                new String[] {"TABLE"});
+            return rs.next();
+        } catch (SQLException e) {
+            throw new Exception("Can't establish a connection to the database by the parameters given");
+        }
+    }
 
     protected <T> String appendIn(String columnName, List<T> list, Map<String, Object> outSqlParams) {
         int countParams = list.size() / LIMIT_IN_STATEMENT;
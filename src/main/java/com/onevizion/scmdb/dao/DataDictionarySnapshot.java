@@ -0,0 +1,80 @@
+package com.onevizion.scmdb.dao;
+
+import com.onevizion.scmdb.vo.DbObject;
+import com.onevizion.scmdb.vo.DbObjectType;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.onevizion.scmdb.vo.DbObjectType.*;
+
+/**
+ * Slices of the data dictionary loaded at once by {@link DdlDao#loadDataDictionarySnapshot()}.
+ * Answers the lookups made for every changed object locally instead of a query per object.
+ */
+public class DataDictionarySnapshot {
+    private final Set<String> objects = new HashSet<>();
+    private final Map<String, String> tableNameByIndexName = new HashMap<>();
+    private final Map<String, String> tableNameByTriggerName = new HashMap<>();
+    private final Map<String, String> tableNameBySequenceName = new HashMap<>();
+
+    DataDictionarySnapshot() {
+    }
+
+    void addObject(String objectName, String objectType) {
+        objects.add(objectKey(objectName, objectType));
+    }
+
+    void addIndex(String indexName, String tableName) {
+        tableNameByIndexName.put(indexName, tableName);
+    }
+
+    void addTrigger(String triggerName, String tableName) {
+        tableNameByTriggerName.put(triggerName, tableName);
+    }
+
+    void addSequence(String sequenceName, String tableName) {
+        tableNameBySequenceName.putIfAbsent(sequenceName, tableName);
+    }
+
+    public boolean isExist(String objectName, DbObjectType objectType) {
+        if (StringUtils.isBlank(objectName) || objectType == null || StringUtils.isBlank(objectType.getName())) {
+            return false;
+        }
+        return objects.contains(objectKey(objectName, objectType.getName()));
+    }
+
+    /**
+     * Table of the index, trigger or sequence used by a trigger, null if not found
+     */
+    public String getTableNameByDepObject(DbObject dbObject) {
+        String objectName = dbObject.getName().toUpperCase();
+        if (dbObject.getType() == INDEX) {
+            return tableNameByIndexName.get(objectName);
+        } else if (dbObject.getType() == TRIGGER) {
+            return tableNameByTriggerName.get(objectName);
+        } else if (dbObject.getType() == SEQUENCE) {
+            return tableNameBySequenceName.get(objectName);
+        }
+        return null;
+    }
+
+    /**
+     * Type of the commented object: table or view, null if there is no such object
+     */
+    public DbObjectType getObjectTypeByName(String objectName) {
+        if (isExist(objectName, TABLE)) {
+            return TABLE;
+        } else if (isExist(objectName, VIEW)) {
+            return VIEW;
+        }
+        return null;
+    }
+
+    private static String objectKey(String objectName, String objectType) {
+        return objectType.toUpperCase() + ":" + objectName.toUpperCase();
+    }
+}
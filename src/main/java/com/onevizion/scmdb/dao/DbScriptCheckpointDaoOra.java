@@ -0,0 +1,42 @@
+package com.onevizion.scmdb.dao;
+
+import com.onevizion.scmdb.vo.ScriptCheckpoint;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class DbScriptCheckpointDaoOra extends AbstractDaoOra {
+
+    private static final String SAVE = "merge into db_script_checkpoint c using (select :name name from dual) s on (c.name = s.name)" +
+            " when matched then update set statement_no = :statementNo, statement_hash = :statementHash, ts = sysdate" +
+            " when not matched then insert (name,statement_no,statement_hash,ts) values (:name,:statementNo,:statementHash,sysdate)";
+    private static final String READ_ALL = "select name,statement_no,statement_hash from db_script_checkpoint order by ts, name";
+    private static final String DELETE = "delete from db_script_checkpoint where name = ?";
+
+    private final RowMapper<ScriptCheckpoint> rowMapper = (rs, rowNum) -> {
+        ScriptCheckpoint checkpoint = new ScriptCheckpoint();
+        checkpoint.setName(rs.getString("name"));
+        checkpoint.setStatementNo(rs.getInt("statement_no"));
+        checkpoint.setStatementHash(rs.getString("statement_hash"));
+        return checkpoint;
+    };
+
+    public void save(ScriptCheckpoint checkpoint) {
+        namedParameterJdbcTemplate.update(SAVE, new BeanPropertySqlParameterSource(checkpoint));
+    }
+
+    public List<ScriptCheckpoint> readAll() {
+        return jdbcTemplate.query(READ_ALL, rowMapper);
+    }
+
+    public void delete(String name) {
+        jdbcTemplate.update(DELETE, name);
+    }
+
+    public boolean isCheckpointTableExist() throws Exception {
+        return isTableExist("DB_SCRIPT_CHECKPOINT");
+    }
+}
@@ -4,16 +4,15 @@ import com.onevizion.scmdb.exception.DbConnectionException;
 import com.onevizion.scmdb.vo.ScriptStatus;
 import com.onevizion.scmdb.vo.ScriptType;
 import com.onevizion.scmdb.vo.SqlScript;
-import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.SqlParameterSourceUtils;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
-import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
 import java.util.HashMap;
@@ -24,34 +23,112 @@ import java.util.Map;
 public class DbScriptDaoOra extends AbstractDaoOra {
 
     private static final String UPDATE = "update db_script set file_hash = :fileHash,text = :text,ts = :ts where db_script_id = :id";
-    private static final String CREATE = "insert into db_script (name,file_hash,text,ts,output,type,status) values (:name,:fileHash,:text,:ts,:output,:type.id,:status.id)";
+    private static final String UPDATE_FILE_HASH = "update db_script set file_hash = :fileHash where db_script_id = :id";
+    private static final String CREATE = "insert into db_script (name,file_hash,text,ts,output,type,status) values (:name,:fileHash,:text,:ts,:inlineOutput,:type.id,:status.id)";
     private static final String DELETE = "delete from db_script where db_script_id = ?";
-    private static final String READ_ALL = "select * from db_script";
+    private static final String ROW_HASH = "ora_hash(name || '|' || file_hash || '|' || status)";
+    private static final String READ_ALL = "select db_script_id,name,file_hash,type,status," + ROW_HASH + " row_hash from db_script";
+    private static final String READ_ALL_AFTER_ID = READ_ALL + " where db_script_id > ?";
+    private static final String READ_CHECKSUM_UP_TO_ID = "select count(*) cnt, nvl(sum(" + ROW_HASH + "), 0) row_hash_sum" +
+            " from db_script where db_script_id <= ?";
+    private static final String READ_TEXTS = "select db_script_id,text from db_script where ";
+    private static final String INLINE_OUTPUT_TO_COMPACT = "dbms_lob.getlength(output) > :maxLength" +
+            " and ts < sysdate - :retentionDays";
+    private static final String IS_INLINE_OUTPUT_TO_COMPACT = "select count(*) from db_script" +
+            " where " + INLINE_OUTPUT_TO_COMPACT + " and rownum = 1";
+    private static final String COMPACT_INLINE_OUTPUT = "update db_script" +
+            " set output = dbms_lob.substr(output, :maxLength, dbms_lob.getlength(output) - :maxLength + 1)" +
+            " where " + INLINE_OUTPUT_TO_COMPACT;
     private static final String READ_COUNT = "select count(*) from db_script";
 
-    private final RowMapper<SqlScript> rowMapper = (rs, rowNum) -> {
-        SqlScript script = new SqlScript();
-        script.setId(rs.getLong("db_script_id"));
-        script.setName(rs.getString("name"));
-        script.setFileHash(rs.getString("file_hash"));
-        script.setText(rs.getString("text"));
-        script.setTs(rs.getDate("ts"));
-        script.setType(ScriptType.getById(rs.getLong("type")));
-        script.setStatus(ScriptStatus.getById(rs.getLong("status")));
-        return script;
+    private final RowMapper<JournalCache.Row> rowMapper = (rs, rowNum) -> {
+        JournalCache.Row row = new JournalCache.Row();
+        row.id = rs.getLong("db_script_id");
+        row.name = rs.getString("name");
+        row.fileHash = rs.getString("file_hash");
+        row.type = rs.getLong("type");
+        row.status = rs.getLong("status");
+        row.rowHash = rs.getLong("row_hash");
+        return row;
     };
 
-    private ResultSetExtractor<Map<String, SqlScript>> dbScriptsExtractor = rs -> {
+    private JournalCache journalCache;
+    // cache is reconciled with the journal once per run, then writes of scmdb are applied to it
+    private boolean journalCacheSynced;
+
+    /**
+     * Enables loading of the journal delta only, see {@link JournalCache}
+     */
+    public void setJournalCache(JournalCache journalCache) {
+        this.journalCache = journalCache;
+        journalCacheSynced = false;
+    }
+
+    /**
+     * Reads lean journal rows by script name. Script text isn't read, see {@link #readTexts(List)}.
+     */
+    public Map<String, SqlScript> readMap() {
+        Collection<JournalCache.Row> rows;
+        if (journalCache == null) {
+            rows = jdbcTemplate.query(READ_ALL, rowMapper);
+        } else {
+            if (!journalCacheSynced) {
+                syncJournalCache();
+                journalCacheSynced = true;
+            }
+            rows = journalCache.getRows();
+        }
+
         Map<String, SqlScript> dbScripts = new HashMap<>();
-        while (rs.next()) {
-            SqlScript dbScript = rowMapper.mapRow(rs, rs.getRow());
+        for (JournalCache.Row row : rows) {
+            SqlScript dbScript = new SqlScript();
+            dbScript.setId(row.id);
+            dbScript.setName(row.name);
+            dbScript.setFileHash(row.fileHash);
+            dbScript.setType(ScriptType.getById(row.type));
+            dbScript.setStatus(ScriptStatus.getById(row.status));
             dbScripts.put(dbScript.getName(), dbScript);
         }
         return dbScripts;
-    };
+    }
 
-    public Map<String, SqlScript> readMap() {
-        return jdbcTemplate.query(READ_ALL, dbScriptsExtractor);
+    /**
+     * Reconciles cached rows up to the high-water mark by count and sum of row hashes and then reads rows above it.
+     * Any mismatch (other database, updated or deleted rows) resets the cache, which results in full reload.
+     * Done once per run, as the journal is scanned to compute the checksum.
+     */
+    private void syncJournalCache() {
+        String identity = readDbIdentity();
+        if (!identity.equals(journalCache.getIdentity())) {
+            journalCache.reset(identity);
+        } else {
+            Map<String, Object> checksum = jdbcTemplate.queryForMap(READ_CHECKSUM_UP_TO_ID, journalCache.getHighWaterMark());
+            long count = ((Number) checksum.get("cnt")).longValue();
+            long rowHashSum = ((Number) checksum.get("row_hash_sum")).longValue();
+            if (count != journalCache.getCount() || rowHashSum != journalCache.getRowHashSum()) {
+                journalCache.reset(identity);
+            }
+        }
+
+        readJournalCacheDelta();
+    }
+
+    private void readJournalCacheDelta() {
+        jdbcTemplate.query(READ_ALL_AFTER_ID, rowMapper, journalCache.getHighWaterMark()).forEach(journalCache::put);
+        journalCache.save();
+    }
+
+    public Map<Long, String> readTexts(List<Long> ids) {
+        Map<Long, String> texts = new HashMap<>();
+        if (ids.isEmpty()) {
+            return texts;
+        }
+        Map<String, Object> params = new HashMap<>();
+        String sql = READ_TEXTS + appendIn("db_script_id", ids, params);
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            texts.put(rs.getLong("db_script_id"), rs.getString("text"));
+        });
+        return texts;
     }
 
     public Long readCount() {
@@ -61,10 +138,38 @@ public class DbScriptDaoOra extends AbstractDaoOra {
     public void createAll(Collection<SqlScript> scripts) {
         SqlScript[] dbScriptsArr = scripts.toArray(new SqlScript[scripts.size()]);
         namedParameterJdbcTemplate.batchUpdate(CREATE, SqlParameterSourceUtils.createBatch(dbScriptsArr));
+        if (journalCache != null && journalCacheSynced && !scripts.isEmpty()) {
+            // ids aren't returned by the batch, inserted rows are above the high-water mark
+            readJournalCacheDelta();
+        }
     }
 
     public void create(SqlScript script) {
-        namedParameterJdbcTemplate.update(CREATE, new BeanPropertySqlParameterSource(script));
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        namedParameterJdbcTemplate.update(CREATE, new BeanPropertySqlParameterSource(script), keyHolder,
+                                          new String[] {"db_script_id"});
+        script.setId(keyHolder.getKey().longValue());
+        refreshJournalCache(List.of(script));
+    }
+
+    public boolean isInlineOutputToCompact(int retentionDays) {
+        return namedParameterJdbcTemplate.queryForObject(IS_INLINE_OUTPUT_TO_COMPACT, getCompactParams(retentionDays),
+                                                         Integer.class) > 0;
+    }
+
+    /**
+     * Trims output stored inline in db_script rows older than the retention to the tail of
+     * {@link SqlScript#INLINE_OUTPUT_MAX_LENGTH} characters. Only rows written before the output history table
+     * was introduced have longer output, it must be copied to the history first,
+     * see {@link DbScriptOutputDaoOra#migrateInlineOutput()}.
+     */
+    public int compactInlineOutput(int retentionDays) {
+        return namedParameterJdbcTemplate.update(COMPACT_INLINE_OUTPUT, getCompactParams(retentionDays));
+    }
+
+    private MapSqlParameterSource getCompactParams(int retentionDays) {
+        return new MapSqlParameterSource("maxLength", SqlScript.INLINE_OUTPUT_MAX_LENGTH)
+                .addValue("retentionDays", retentionDays);
     }
 
     public void deleteByIds(List<Long> ids) {
@@ -75,27 +180,45 @@ public class DbScriptDaoOra extends AbstractDaoOra {
         String sql = "delete from db_script where ";
         sql += appendIn("db_script_id", ids, params);
         namedParameterJdbcTemplate.update(sql, params);
+        if (journalCache != null) {
+            journalCache.remove(ids);
+            journalCache.save();
+        }
     }
 
     public void batchUpdate(List<SqlScript> scripts) {
         SqlScript[] scriptsArr = scripts.toArray(new SqlScript[scripts.size()]);
         namedParameterJdbcTemplate.batchUpdate(UPDATE, SqlParameterSourceUtils.createBatch(scriptsArr));
+        refreshJournalCache(scripts);
+    }
+
+    public void batchUpdateFileHash(List<SqlScript> scripts) {
+        namedParameterJdbcTemplate.batchUpdate(UPDATE_FILE_HASH, SqlParameterSourceUtils.createBatch(scripts));
+        refreshJournalCache(scripts);
+    }
+
+    /**
+     * Puts the rows written by scmdb to the cache, the rows are read by id to get their hashes computed by the database
+     */
+    private void refreshJournalCache(List<SqlScript> scripts) {
+        if (journalCache != null && journalCacheSynced && !scripts.isEmpty()) {
+            Map<String, Object> params = new HashMap<>();
+            String sql = READ_ALL + " where " + appendIn("db_script_id", scripts.stream().map(SqlScript::getId).toList(), params);
+            namedParameterJdbcTemplate.query(sql, params, rowMapper).forEach(journalCache::put);
+            journalCache.save();
+        }
     }
 
     public void delete(Long id) {
         jdbcTemplate.update(DELETE, id);
+        if (journalCache != null) {
+            journalCache.remove(List.of(id));
+            journalCache.save();
+        }
     }
 
     public boolean isScriptTableExist() throws Exception {
-        DataSource dataSource = jdbcTemplate.getDataSource();
-        try (Connection connection = dataSource.getConnection()) {
-            DatabaseMetaData dbMetaData = connection.getMetaData();
-            ResultSet rs = dbMetaData.getTables(null, connection.getSchema(), "DB_SCRIPT",
-                new String[] {"TABLE"});
-            return rs.next();
-        } catch (SQLException e) {
-            throw new Exception("Can't establish a connection to the database by the parameters given");
-        }
+        return isTableExist("DB_SCRIPT");
     }
 
     public void checkDbConnection() {
@@ -0,0 +1,56 @@
+package com.onevizion.scmdb.dao;
+
+import com.onevizion.scmdb.vo.SqlScript;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+
+@Repository
+public class DbScriptOutputDaoOra extends AbstractDaoOra {
+
+    private static final String CREATE = "insert into db_script_output (db_script_id,name,run_ts,output) values (:scriptId,:name,:runTs,:output)";
+    // full output of the rows written to db_script before the output history table was introduced
+    private static final String INLINE_OUTPUT_TO_MIGRATE = "dbms_lob.getlength(s.output) > :maxLength" +
+            " and not exists (select 1 from db_script_output o where o.db_script_id = s.db_script_id)";
+    private static final String IS_INLINE_OUTPUT_TO_MIGRATE = "select count(*) from db_script s" +
+            " where " + INLINE_OUTPUT_TO_MIGRATE + " and rownum = 1";
+    private static final String MIGRATE_INLINE_OUTPUT = "insert into db_script_output (db_script_id,name,run_ts,output)" +
+            " select s.db_script_id,s.name,sysdate,s.output from db_script s where " + INLINE_OUTPUT_TO_MIGRATE;
+    private static final String DELETE_OLDER_THAN = "delete from db_script_output where run_ts < sysdate - :retentionDays";
+
+    public void create(SqlScript script, Date runTs) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("scriptId", script.getId());
+        params.addValue("name", script.getName());
+        params.addValue("runTs", runTs);
+        params.addValue("output", script.getOutput());
+        namedParameterJdbcTemplate.update(CREATE, params);
+    }
+
+    public boolean isInlineOutputToMigrate() {
+        return namedParameterJdbcTemplate.queryForObject(IS_INLINE_OUTPUT_TO_MIGRATE, getMigrateParams(),
+                                                         Integer.class) > 0;
+    }
+
+    /**
+     * Copies full output kept inline in db_script rows written before the output history table was introduced,
+     * so it isn't lost when the inline output is compacted. Copies are dated by the migration, so they are kept
+     * for the whole retention period.
+     */
+    public int migrateInlineOutput() {
+        return namedParameterJdbcTemplate.update(MIGRATE_INLINE_OUTPUT, getMigrateParams());
+    }
+
+    private MapSqlParameterSource getMigrateParams() {
+        return new MapSqlParameterSource("maxLength", SqlScript.INLINE_OUTPUT_MAX_LENGTH);
+    }
+
+    public int deleteOlderThan(int retentionDays) {
+        return namedParameterJdbcTemplate.update(DELETE_OLDER_THAN, new MapSqlParameterSource("retentionDays", retentionDays));
+    }
+
+    public boolean isOutputTableExist() throws Exception {
+        return isTableExist("DB_SCRIPT_OUTPUT");
+    }
+}
@@ -0,0 +1,69 @@
+package com.onevizion.scmdb.dao;
+
+import com.onevizion.scmdb.vo.ScriptRun;
+import com.onevizion.scmdb.vo.ScriptStatus;
+import com.onevizion.scmdb.vo.SqlScript;
+import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class DbScriptRunDaoOra extends AbstractDaoOra {
+
+    private static final String CREATE = "insert into db_script_run (start_ts,end_ts,host,run_mode,compile_ms,ddl_ms) values (:startTs,:endTs,:host,:mode,:compileMillis,:ddlMillis)";
+    private static final String UPDATE = "update db_script_run set end_ts = :endTs,compile_ms = :compileMillis,ddl_ms = :ddlMillis where db_script_run_id = :id";
+    private static final String CREATE_ITEM = "insert into db_script_run_item (db_script_run_id,name,schema_type,duration_ms,status) values (:runId,:name,:schemaType,:durationMillis,:status)";
+    private static final String READ_AVG_DURATIONS = "select name, round(avg(duration_ms)) duration_ms from db_script_run_item where status = :status and ";
+
+    public void create(ScriptRun run) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        namedParameterJdbcTemplate.update(CREATE, new BeanPropertySqlParameterSource(run), keyHolder,
+                                          new String[] {"db_script_run_id"});
+        run.setId(keyHolder.getKey().longValue());
+    }
+
+    public void update(ScriptRun run) {
+        namedParameterJdbcTemplate.update(UPDATE, new BeanPropertySqlParameterSource(run));
+    }
+
+    public void createItem(Long runId, SqlScript script) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        params.addValue("runId", runId);
+        params.addValue("name", script.getName());
+        params.addValue("schemaType", script.getSchemaType().name());
+        params.addValue("durationMillis", script.getDurationMillis());
+        params.addValue("status", script.getStatus().getId());
+        namedParameterJdbcTemplate.update(CREATE_ITEM, params);
+    }
+
+    /**
+     * Average duration of successful executions of the scripts, taken from the whole history table,
+     * including runs imported from other environments.
+     *
+     * @param names script names
+     * @return average duration in milliseconds by script name, scripts without history are absent
+     */
+    public Map<String, Long> readAvgDurations(List<String> names) {
+        Map<String, Long> durations = new HashMap<>();
+        if (names.isEmpty()) {
+            return durations;
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("status", ScriptStatus.EXECUTED.getId());
+        String sql = READ_AVG_DURATIONS + appendIn("name", names, params) + " group by name";
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            durations.put(rs.getString("name"), rs.getLong("duration_ms"));
+        });
+        return durations;
+    }
+
+    public boolean isRunTableExist() throws Exception {
+        return isTableExist("DB_SCRIPT_RUN");
+    }
+}
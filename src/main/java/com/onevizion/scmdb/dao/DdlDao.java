@@ -1,29 +1,42 @@
 package com.onevizion.scmdb.dao;
 
 import com.onevizion.scmdb.vo.DbObject;
+import com.onevizion.scmdb.vo.DbObjectState;
 import com.onevizion.scmdb.vo.DbObjectType;
-import org.apache.commons.lang3.StringUtils;
-import org.springframework.dao.EmptyResultDataAccessException;
+import oracle.jdbc.OracleStatement;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static com.onevizion.scmdb.vo.DbObjectType.*;
 
 @Component
 public class DdlDao extends AbstractDaoOra {
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     private final static String TABLE_NAME_COLUMN_NAME = "table_name";
     private final static String DDL_COLUMN_NAME = "ddl";
     private final static String COMPRESSION_COLUMN_NAME = "compression";
     private final static String PREFIX_LENGTH_COLUMN_NAME = "prefix_length";
-    private final static String FIND_ALL_DB_OBJECTS = "select object_name,\n" +
-            "       object_type\n" +
-            "from user_objects\n" +
-            "where (object_type = 'TABLE'\n" +
+    private final static String ALL_DB_OBJECTS_CONDITION = "((object_type = 'TABLE'\n" +
             "    and generated = 'N'\n" +
             "    and object_name not like 'Z_%'" +
             "    and object_name not like '%_OLD')\n" +
@@ -33,7 +46,51 @@ public class DdlDao extends AbstractDaoOra {
             "   or object_type = 'TRIGGER'\n" +
             "   or ((object_type = 'TYPE' or object_type = 'TYPE BODY')\n" +
             "     and generated = 'N'\n" +
-            "     and object_name not like 'T$%')\n";
+            "     and object_name not like 'T$%'))\n";
+    // Triggers are exported as a part of the table DDL
+    private final static String ALL_DB_OBJECTS_WITH_OWN_DDL_CONDITION = ALL_DB_OBJECTS_CONDITION +
+            "  and object_type <> 'TRIGGER'\n";
+    private final static String COUNT_ALL_DB_OBJECTS_WITH_OWN_DDL = "select count(*) from user_objects where " +
+            ALL_DB_OBJECTS_WITH_OWN_DDL_CONDITION;
+    private final static String SELECT_ALL_DB_OBJECTS_DDL = "select object_name,\n" +
+            "       object_type,\n" +
+            "       dbms_metadata.get_ddl(decode(object_type, 'PACKAGE', 'PACKAGE_SPEC', 'PACKAGE BODY', 'PACKAGE_BODY',\n" +
+            "                                    'TYPE', 'TYPE_SPEC', 'TYPE BODY', 'TYPE_BODY', object_type),\n" +
+            "                             object_name) ddl\n" +
+            "from user_objects\n" +
+            "where " + ALL_DB_OBJECTS_WITH_OWN_DDL_CONDITION +
+            "order by object_type, object_name";
+    private final static int DDL_FETCH_SIZE = 20;
+    // Specs and small bodies come with the row, larger sources are read from the LOB in chunks
+    private final static int LOB_PREFETCH_SIZE = 64 * 1024;
+    private final static String SELECT_DDL = "select dbms_metadata.get_ddl(upper(?), upper(?)) ddl from dual";
+    // Time of the table includes its indexes, triggers and sequences used by the triggers, which are exported with it
+    private final static String SELECT_ALL_DB_OBJECTS_STATE = "with dependents as (\n" +
+            "  select ind.table_name, o.last_ddl_time\n" +
+            "  from user_indexes ind, user_objects o\n" +
+            "  where o.object_name = ind.index_name and o.object_type = 'INDEX'\n" +
+            "  union all\n" +
+            "  select trgrs.table_name, o.last_ddl_time\n" +
+            "  from user_triggers trgrs, user_objects o\n" +
+            "  where o.object_name = trgrs.trigger_name and o.object_type = 'TRIGGER'\n" +
+            "  union all\n" +
+            "  select trgrs.table_name, o.last_ddl_time\n" +
+            "  from user_dependencies depends, user_triggers trgrs, user_objects o\n" +
+            "  where trgrs.trigger_name = depends.name and depends.type = 'TRIGGER'\n" +
+            "    and depends.referenced_type = 'SEQUENCE'\n" +
+            "    and o.object_name = depends.referenced_name and o.object_type = 'SEQUENCE'),\n" +
+            "table_dependents as (\n" +
+            "  select table_name, max(last_ddl_time) last_ddl_time, count(*) dependents_count\n" +
+            "  from dependents\n" +
+            "  group by table_name)\n" +
+            "select obj.object_name,\n" +
+            "       obj.object_type,\n" +
+            "       to_char(greatest(obj.last_ddl_time, nvl(td.last_ddl_time, obj.last_ddl_time)),\n" +
+            "               'yyyy-mm-dd\"T\"hh24:mi:ss') last_ddl_time,\n" +
+            "       nvl(td.dependents_count, 0) dependents_count\n" +
+            "from user_objects obj, table_dependents td\n" +
+            "where td.table_name(+) = decode(obj.object_type, 'TABLE', obj.object_name)\n" +
+            "  and " + ALL_DB_OBJECTS_WITH_OWN_DDL_CONDITION;
 
     private final static String SELECT_DDL_COMMENTS_BY_TABLE_NAME = "select table_name, dbms_metadata.get_dependent_ddl('COMMENT', table_name) from" +
             " ((select table_name from user_tab_comments" +
@@ -59,6 +116,20 @@ public class DdlDao extends AbstractDaoOra {
             " from user_triggers where table_name=upper(:tableName)" +
             " and trigger_name not like 'Z_%' order by nlssort(trigger_name, 'NLS_SORT = BINARY_CI')";
 
+    private final static String SELECT_SNAPSHOT_OBJECTS = "select object_name, object_type from user_objects" +
+            " where object_type in ('TABLE', 'VIEW', 'PACKAGE', 'PACKAGE BODY', 'TYPE', 'TYPE BODY'," +
+            " 'INDEX', 'SEQUENCE', 'TRIGGER')";
+
+    private final static String SELECT_SNAPSHOT_INDEXES = "select index_name, table_name from user_indexes";
+
+    private final static String SELECT_SNAPSHOT_TRIGGERS = "select trigger_name, table_name from user_triggers";
+
+    private final static String SELECT_SNAPSHOT_SEQUENCES = "select depends.referenced_name, trgrs.table_name" +
+            " from user_dependencies depends, user_triggers trgrs" +
+            " where trgrs.trigger_name = depends.name and depends.type = 'TRIGGER'" +
+            " and depends.referenced_type = 'SEQUENCE'" +
+            " order by depends.referenced_name, trgrs.table_name";
+
     private final static RowMapper<DbObject> rowMapper = (rs, rowNum) -> {
         DbObject dbObject = new DbObject();
         dbObject.setName(rs.getString(1));
@@ -96,8 +167,85 @@ public class DdlDao extends AbstractDaoOra {
         jdbcTemplate.execute(plsqlBlock);
     }
 
-    public List<DbObject> extractAllDbObjectsWithoutDdl() {
-        return jdbcTemplate.query(FIND_ALL_DB_OBJECTS, rowMapperWithObjectType);
+    public int countAllDbObjectsWithOwnDdl() {
+        return jdbcTemplate.queryForObject(COUNT_ALL_DB_OBJECTS_WITH_OWN_DDL, Integer.class);
+    }
+
+    /**
+     * Passes DDL of every object to the consumer as soon as it's fetched, so only the current object is kept in memory.
+     * DDL of PL/SQL sources isn't loaded at all, it's streamed from the CLOB, see {@link DbObject#getDdlReader()}.
+     * Runs in a transaction to keep one connection for the session transform params, the cursor and the
+     * queries the consumer makes for the dependent objects.
+     */
+    public void extractAllDbObjectsDdl(Consumer<DbObject> consumer) {
+        transactionTemplate.executeWithoutResult(status -> {
+            executeTransformParamStatements();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_ALL_DB_OBJECTS_DDL);
+                statement.setFetchSize(DDL_FETCH_SIZE);
+                setLobPrefetchSize(statement);
+                return statement;
+            }, (RowCallbackHandler) rs -> acceptDdl(rs, rowMapperWithObjectType.mapRow(rs, rs.getRow()), consumer));
+        });
+    }
+
+    public List<DbObjectState> readAllDbObjectsState() {
+        return jdbcTemplate.query(SELECT_ALL_DB_OBJECTS_STATE, (rs, rowNum) -> new DbObjectState(
+                rowMapperWithObjectType.mapRow(rs, rowNum), rs.getString("last_ddl_time"), rs.getInt("dependents_count")));
+    }
+
+    /**
+     * Extracts DDL of the given objects on one connection with the session transform params set
+     */
+    public void extractDdls(Collection<DbObject> dbObjects, Consumer<DbObject> consumer) {
+        transactionTemplate.executeWithoutResult(status -> {
+            executeTransformParamStatements();
+            for (DbObject dbObject : dbObjects) {
+                extractDdl(dbObject, consumer);
+            }
+        });
+    }
+
+    /**
+     * Passes the object with its DDL to the consumer, DDL of PL/SQL sources is streamed from the CLOB
+     */
+    public void extractDdl(DbObject dbObject, Consumer<DbObject> consumer) {
+        if (!dbObject.getType().isSource()) {
+            dbObject.setDdl(extractDdl(dbObject));
+            consumer.accept(dbObject);
+            return;
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_DDL);
+            setLobPrefetchSize(statement);
+            statement.setString(1, dbObject.getType().toString());
+            statement.setString(2, dbObject.getName());
+            return statement;
+        }, (RowCallbackHandler) rs -> acceptDdl(rs, dbObject, consumer));
+    }
+
+    private static void acceptDdl(ResultSet rs, DbObject dbObject, Consumer<DbObject> consumer) throws SQLException {
+        if (!dbObject.getType().isSource()) {
+            dbObject.setDdl(rs.getString(DDL_COLUMN_NAME));
+            consumer.accept(dbObject);
+            return;
+        }
+        Clob ddl = rs.getClob(DDL_COLUMN_NAME);
+        try (Reader reader = ddl.getCharacterStream()) {
+            dbObject.setDdlReader(reader);
+            consumer.accept(dbObject);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read ddl of " + dbObject, e);
+        } finally {
+            dbObject.setDdlReader(null);
+            ddl.free();
+        }
+    }
+
+    private static void setLobPrefetchSize(Statement statement) throws SQLException {
+        if (statement.isWrapperFor(OracleStatement.class)) {
+            statement.unwrap(OracleStatement.class).setLobPrefetchSize(LOB_PREFETCH_SIZE);
+        }
     }
 
     public String extractDdl(DbObject dbObject) {
@@ -125,52 +273,20 @@ public class DdlDao extends AbstractDaoOra {
         return dbObjects;
     }
 
-    public String getTableNameByDepObject(DbObject dbObject) {
-        MapSqlParameterSource namedParams = new MapSqlParameterSource();
-        namedParams.addValue("objName", dbObject.getName());
-        String sql;
-        if (dbObject.getType() == INDEX) {
-            sql = "select table_name from user_indexes where index_name = upper(:objName)";
-        } else if (dbObject.getType() == TRIGGER) {
-            sql = "select table_name from user_triggers where trigger_name = upper(:objName)";
-        } else if (dbObject.getType() == SEQUENCE) {
-            sql = "select trgrs.table_name from user_dependencies depends, user_triggers trgrs" +
-                    " where trgrs.trigger_name = depends.name and depends.type = 'TRIGGER'" +
-                    " and depends.referenced_type = 'SEQUENCE' and depends.referenced_name = upper(:objName)";
-        } else {
-            return null;
-        }
-        try {
-            return namedParameterJdbcTemplate.queryForObject(sql, namedParams, String.class);
-        } catch (EmptyResultDataAccessException e) {
-            return null;
-        }
-    }
-
-    public DbObjectType getObjectTypeByName(String dbObjName) {
-        String sql = "select 'TABLE' object_type from user_tables where table_name = upper(:dbObjName)" +
-                " union all select 'VIEW' object_type from user_views where view_name = upper(:dbObjName)";
-        MapSqlParameterSource namedParams = new MapSqlParameterSource();
-        namedParams.addValue("dbObjName", dbObjName, Types.VARCHAR);
-        String dbObjTypeString = namedParameterJdbcTemplate.queryForObject(sql, namedParams, String.class);
-        return DbObjectType.valueOf(dbObjTypeString);
-    }
-
-    public boolean isExist(String objectName, DbObjectType objectType) {
-        if (StringUtils.isBlank(objectName) || objectType == null || StringUtils.isBlank(objectType.getName())) {
-            return false;
-        }
-
-        MapSqlParameterSource namedParams = new MapSqlParameterSource();
-        namedParams.addValue("objName", objectName, Types.VARCHAR);
-        namedParams.addValue("objType", objectType.getName(), Types.VARCHAR);
-        String sql = "select case when" +
-                "                count(object_name) > 0 then 'true'" +
-                "            else 'false'" +
-                "        end" +
-                "    from user_objects where object_name = upper(:objName) and object_type = upper(:objType)";
-        String boolStr = namedParameterJdbcTemplate.queryForObject(sql, namedParams, String.class);
-        return Boolean.valueOf(boolStr);
+    /**
+     * Loads objects, indexes, triggers and sequences used by the triggers in four queries
+     */
+    public DataDictionarySnapshot loadDataDictionarySnapshot() {
+        DataDictionarySnapshot snapshot = new DataDictionarySnapshot();
+        jdbcTemplate.query(SELECT_SNAPSHOT_OBJECTS,
+                (RowCallbackHandler) rs -> snapshot.addObject(rs.getString(1), rs.getString(2)));
+        jdbcTemplate.query(SELECT_SNAPSHOT_INDEXES,
+                (RowCallbackHandler) rs -> snapshot.addIndex(rs.getString(1), rs.getString(2)));
+        jdbcTemplate.query(SELECT_SNAPSHOT_TRIGGERS,
+                (RowCallbackHandler) rs -> snapshot.addTrigger(rs.getString(1), rs.getString(2)));
+        jdbcTemplate.query(SELECT_SNAPSHOT_SEQUENCES,
+                (RowCallbackHandler) rs -> snapshot.addSequence(rs.getString(1), rs.getString(2)));
+        return snapshot;
     }
 
-}
\ No newline at end of file
+}
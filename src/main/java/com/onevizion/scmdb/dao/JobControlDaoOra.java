@@ -0,0 +1,93 @@
+package com.onevizion.scmdb.dao;
+
+import org.springframework.jdbc.core.CallableStatementCallback;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+public class JobControlDaoOra extends AbstractDaoOra {
+
+    private static final String DISABLE_ALL_JOBS = "{? = call pkg_job_control.disable_jobs(30, 1)}";
+    private static final String ENABLE_ALL_JOBS = "{? = call pkg_job_control.enable_jobs()}";
+    private static final String DISABLE_JOB = "begin dbms_scheduler.disable(?, force => true); end;";
+    private static final String ENABLE_JOB = "begin dbms_scheduler.enable(?); end;";
+    private static final String IS_JOB_RUNNING = "select count(*) from user_scheduler_running_jobs where job_name = ?";
+    // Unit called by the job is the first identifier of its action, dependencies of the unit are followed transitively
+    private static final String READ_JOB_DEPENDENCIES = "with job_units as (" +
+            "  select j.job_name," +
+            "         upper(regexp_substr(nvl(p.program_action, j.job_action)," +
+            "                             '^\\s*(begin\\s+)?\"?([a-z][a-z0-9_$#]*)', 1, 1, 'i', 2)) unit_name" +
+            "  from user_scheduler_jobs j, user_scheduler_programs p" +
+            "  where p.program_name(+) = j.program_name and j.enabled = 'TRUE')," +
+            " unit_dependencies as (" +
+            "  select connect_by_root name unit_name, referenced_name" +
+            "  from user_dependencies" +
+            "  where referenced_owner = user" +
+            "  start with name in (select unit_name from job_units)" +
+            "  connect by nocycle name = prior referenced_name and prior referenced_owner = user)" +
+            " select job_name, unit_name object_name from job_units where {unitNames}" +
+            " union" +
+            " select ju.job_name, ud.referenced_name from job_units ju, unit_dependencies ud" +
+            " where ud.unit_name = ju.unit_name and {referencedNames}";
+
+    /**
+     * @return message of pkg_job_control
+     */
+    public String disableAllJobs() {
+        return callJobControl(DISABLE_ALL_JOBS);
+    }
+
+    /**
+     * @return message of pkg_job_control
+     */
+    public String enableAllJobs() {
+        return callJobControl(ENABLE_ALL_JOBS);
+    }
+
+    private String callJobControl(String call) {
+        return jdbcTemplate.execute(call, (CallableStatementCallback<String>) cs -> {
+            cs.registerOutParameter(1, Types.VARCHAR);
+            cs.execute();
+            return cs.getString(1);
+        });
+    }
+
+    /**
+     * Disables the scheduler job, its running instance isn't stopped
+     */
+    public void disableJob(String jobName) {
+        jdbcTemplate.update(DISABLE_JOB, jobName);
+    }
+
+    public void enableJob(String jobName) {
+        jdbcTemplate.update(ENABLE_JOB, jobName);
+    }
+
+    public boolean isJobRunning(String jobName) {
+        return jdbcTemplate.queryForObject(IS_JOB_RUNNING, Integer.class, jobName) > 0;
+    }
+
+    /**
+     * Enabled scheduler jobs calling units which are or depend on the given objects
+     *
+     * @param objectNames object names in upper case
+     * @return the given objects each job depends on by job name
+     */
+    public Map<String, Set<String>> readJobDependencies(List<String> objectNames) {
+        Map<String, Object> params = new HashMap<>();
+        String sql = READ_JOB_DEPENDENCIES.replace("{unitNames}", appendIn("unit_name", objectNames, params))
+                                          .replace("{referencedNames}", appendIn("referenced_name", objectNames, params));
+        Map<String, Set<String>> dependencies = new HashMap<>();
+        namedParameterJdbcTemplate.query(sql, params, rs -> {
+            dependencies.computeIfAbsent(rs.getString("job_name"), job -> new HashSet<>())
+                        .add(rs.getString("object_name"));
+        });
+        return dependencies;
+    }
+}
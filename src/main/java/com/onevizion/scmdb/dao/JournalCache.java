@@ -0,0 +1,157 @@
+package com.onevizion.scmdb.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Local copy of the lean db_script columns, kept between runs to load only the journal delta.
+ * Cache is tagged with the database identity and the high-water mark of db_script_id.
+ * Each row keeps ora_hash of its columns computed by the database, so the cached part is reconciled
+ * with the journal by comparing count and sum of the hashes.
+ */
+public class JournalCache {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final File file;
+    private String identity;
+    private long highWaterMark;
+    private final Map<Long, Row> rows = new TreeMap<>();
+    // changed since it was loaded or saved
+    private boolean dirty;
+
+    private JournalCache(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads cache from the file. Missing, unreadable or corrupted file results in the empty cache.
+     */
+    public static JournalCache load(File file) {
+        JournalCache cache = new JournalCache(file);
+        if (!file.isFile()) {
+            return cache;
+        }
+        try {
+            Content content = MAPPER.readValue(file, Content.class);
+            if (content.rows == null || !checksum(content.rows).equals(content.checksum)) {
+                return cache;
+            }
+            cache.identity = content.identity;
+            cache.highWaterMark = content.highWaterMark;
+            content.rows.forEach(row -> cache.rows.put(row.id, row));
+        } catch (IOException e) {
+            cache.rows.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Writes the cache to the file if it was changed since it was loaded or saved
+     */
+    public void save() {
+        if (!dirty) {
+            return;
+        }
+        Content content = new Content();
+        content.identity = identity;
+        content.highWaterMark = highWaterMark;
+        content.rows = new ArrayList<>(rows.values());
+        content.checksum = checksum(content.rows);
+
+        Path tmpFile = null;
+        try {
+            FileUtils.forceMkdir(file.getParentFile());
+            tmpFile = Files.createTempFile(file.getParentFile().toPath(), file.getName(), ".part");
+            MAPPER.writeValue(tmpFile.toFile(), content);
+            try {
+                Files.move(tmpFile, file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            // cache is an optimization only, journal is reloaded from the database next time
+        } finally {
+            if (tmpFile != null) {
+                tmpFile.toFile().delete();
+            }
+        }
+    }
+
+    public void reset(String identity) {
+        this.identity = identity;
+        highWaterMark = 0;
+        rows.clear();
+        dirty = true;
+    }
+
+    public String getIdentity() {
+        return identity;
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public int getCount() {
+        return rows.size();
+    }
+
+    public long getRowHashSum() {
+        return rows.values().stream().mapToLong(row -> row.rowHash).sum();
+    }
+
+    public Collection<Row> getRows() {
+        return rows.values();
+    }
+
+    public void put(Row row) {
+        rows.put(row.id, row);
+        highWaterMark = Math.max(highWaterMark, row.id);
+        dirty = true;
+    }
+
+    public void remove(Collection<Long> ids) {
+        for (Long id : ids) {
+            dirty |= rows.remove(id) != null;
+        }
+    }
+
+    private static String checksum(List<Row> rows) {
+        StringBuilder sb = new StringBuilder();
+        for (Row row : rows) {
+            sb.append(row.id).append('|').append(row.name).append('|').append(row.fileHash).append('|')
+              .append(row.type).append('|').append(row.status).append('|').append(row.rowHash).append('\n');
+        }
+        return DigestUtils.sha1Hex(sb.toString());
+    }
+
+    public static class Row {
+        public long id;
+        public String name;
+        public String fileHash;
+        public long type;
+        public long status;
+        public long rowHash;
+    }
+
+    static class Content {
+        public String identity;
+        public long highWaterMark;
+        public String checksum;
+        public List<Row> rows;
+    }
+}
@@ -0,0 +1,99 @@
+package com.onevizion.scmdb.dao;
+
+import com.onevizion.scmdb.vo.LockConflict;
+import com.onevizion.scmdb.vo.SessionProgress;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads state of other sessions from the dynamic performance views, requires SELECT on v$session, gv$session,
+ * gv$session_longops, gv$sql, v$locked_object and v$access (e.g. SELECT_CATALOG_ROLE)
+ */
+@Repository
+public class SessionDaoOra extends AbstractDaoOra {
+
+    private static final int SQL_TEXT_LENGTH = 200;
+    private static final String READ_PROGRESS = "select s.state, s.event, s.wait_class," +
+            " round(s.wait_time_micro / 1000000) wait_seconds, s.blocking_session, s.sql_id," +
+            " (select substr(q.sql_text, 1, " + SQL_TEXT_LENGTH + ") from gv$sql q" +
+            "   where q.inst_id = s.inst_id and q.sql_id = s.sql_id and q.child_number = s.sql_child_number) sql_text," +
+            " l.opname, l.target, l.sofar, l.totalwork, l.units, l.time_remaining" +
+            " from gv$session s" +
+            " left join (select opname, target, sofar, totalwork, units, time_remaining," +
+            "              row_number() over (order by last_update_time desc) rn" +
+            "            from gv$session_longops" +
+            "            where inst_id = :instId and sid = :sid and serial# = :serial and sofar < totalwork) l" +
+            "   on l.rn = 1" +
+            " where s.inst_id = :instId and s.sid = :sid and s.serial# = :serial";
+    // Running calls pin the code they execute, so only active sessions block its recompilation
+    private static final String READ_LOCK_CONFLICTS = "with objects as (" +
+            "  select object_id, object_name, object_type from all_objects where owner = :owner and {objectNames})" +
+            " select o.object_name, o.object_type, 1 dml_lock, s.sid, s.serial# serial, s.username, s.program" +
+            " from v$locked_object l, objects o, v$session s" +
+            " where l.object_id = o.object_id and s.sid = l.session_id and s.sid <> sys_context('USERENV', 'SID')" +
+            " union all" +
+            " select o.object_name, o.object_type, 0 dml_lock, s.sid, s.serial# serial, s.username, s.program" +
+            " from v$access a, objects o, v$session s" +
+            " where a.owner = :owner and a.object = o.object_name and a.type = o.object_type" +
+            "   and o.object_type <> 'TABLE' and s.sid = a.sid and s.status = 'ACTIVE'" +
+            "   and s.sid <> sys_context('USERENV', 'SID')" +
+            " order by 1, 4";
+
+    private final RowMapper<SessionProgress> rowMapper = (rs, rowNum) -> {
+        SessionProgress progress = new SessionProgress();
+        progress.setState(rs.getString("state"));
+        progress.setEvent(rs.getString("event"));
+        progress.setWaitClass(rs.getString("wait_class"));
+        progress.setWaitSeconds(rs.getLong("wait_seconds"));
+        progress.setBlockingSession(rs.getObject("blocking_session", Integer.class));
+        progress.setSqlId(rs.getString("sql_id"));
+        progress.setSqlText(rs.getString("sql_text"));
+        progress.setOperation(rs.getString("opname"));
+        progress.setTarget(rs.getString("target"));
+        progress.setSofar(rs.getLong("sofar"));
+        progress.setTotalWork(rs.getLong("totalwork"));
+        progress.setUnits(rs.getString("units"));
+        progress.setSecondsRemaining(rs.getObject("time_remaining", Long.class));
+        return progress;
+    };
+
+    private final RowMapper<LockConflict> lockConflictRowMapper = (rs, rowNum) -> {
+        LockConflict conflict = new LockConflict();
+        conflict.setObjectName(rs.getString("object_name"));
+        conflict.setObjectType(rs.getString("object_type"));
+        conflict.setDmlLock(rs.getBoolean("dml_lock"));
+        conflict.setSid(rs.getInt("sid"));
+        conflict.setSerial(rs.getInt("serial"));
+        conflict.setUsername(rs.getString("username"));
+        conflict.setProgram(rs.getString("program"));
+        return conflict;
+    };
+
+    /**
+     * Sessions holding DML locks on the tables or executing the code objects of the schema
+     *
+     * @param owner schema name in upper case
+     * @param objectNames object names in upper case
+     */
+    public List<LockConflict> readLockConflicts(String owner, List<String> objectNames) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("owner", owner);
+        String sql = READ_LOCK_CONFLICTS.replace("{objectNames}", appendIn("object_name", objectNames, params));
+        return namedParameterJdbcTemplate.query(sql, params, lockConflictRowMapper);
+    }
+
+    /**
+     * @return null if the session has ended
+     */
+    public SessionProgress readProgress(int instId, int sid, int serial) {
+        MapSqlParameterSource params = new MapSqlParameterSource("instId", instId).addValue("sid", sid)
+                                                                                  .addValue("serial", serial);
+        List<SessionProgress> progress = namedParameterJdbcTemplate.query(READ_PROGRESS, params, rowMapper);
+        return progress.isEmpty() ? null : progress.get(0);
+    }
+}
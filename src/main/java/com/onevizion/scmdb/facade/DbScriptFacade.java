@@ -3,53 +3,94 @@ package com.onevizion.scmdb.facade;
 import com.onevizion.scmdb.AppArguments;
 import com.onevizion.scmdb.ColorLogger;
 import com.onevizion.scmdb.ResourceResolveUtils;
+import com.onevizion.scmdb.ScriptManifest;
 import com.onevizion.scmdb.dao.DbScriptDaoOra;
+import com.onevizion.scmdb.dao.DbScriptOutputDaoOra;
+import com.onevizion.scmdb.dao.JournalCache;
 import com.onevizion.scmdb.exception.ScmdbException;
+import com.onevizion.scmdb.jfr.ScriptDiscoveryEvent;
+import com.onevizion.scmdb.vo.DbCnnCredentials;
+import com.onevizion.scmdb.vo.ScriptCatalog;
+import com.onevizion.scmdb.vo.ScriptDigest;
+import com.onevizion.scmdb.vo.ScriptStatus;
+import com.onevizion.scmdb.vo.ScriptTextCache;
 import com.onevizion.scmdb.vo.SqlScript;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.SystemUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static com.onevizion.scmdb.vo.SchemaType.OWNER;
 import static com.onevizion.scmdb.vo.ScriptType.COMMIT;
+import static com.onevizion.scmdb.vo.ScriptType.ROLLBACK;
 
 @Component
 public class DbScriptFacade {
 
     private static final int MAX_DEVELOPMENT_ORDER_NUMBER = 100;
     private static final String EXEC_FOLDER_NAME = "EXECUTE_ME";
+    private static final String JOURNAL_CACHE_DIR = ".scmdb" + File.separator + "journal-cache";
     private static final String ERROR_MSG_COMMIT_DELETED_WITHOUT_ROLLBACK = "Following scripts were deleted but it's rollbacks are still here. Remove rollbacks scripts or restore deleted scripts and then run scmdb again.";
 
     @Autowired
     private DbScriptDaoOra sqlScriptDaoOra;
 
+    @Autowired
+    private DbScriptOutputDaoOra scriptOutputDaoOra;
+
     @Autowired
     private AppArguments appArguments;
 
     @Autowired
     private ColorLogger logger;
 
+    @Autowired
+    private ScriptTextCache scriptTextCache;
+
+    private final Date runTs = new Date();
     private File execDir;
-    private List<SqlScript> scriptsInDir;
+    private ScriptCatalog scriptsInDir;
+    private final Map<Path, CompletableFuture<SqlScript>> preloadedScripts = new ConcurrentHashMap<>();
 
     public void init() {
         execDir = appArguments.getScriptsDirectory() != null
                 ? new File(appArguments.getScriptsDirectory().getAbsolutePath(), EXEC_FOLDER_NAME)
                 : createTempDirectory();
 
-        scriptsInDir = createScriptsFromResources(appArguments.isReadAllFilesContent());
+        scriptsInDir = new ScriptCatalog(createScriptsFromResources(appArguments.isReadAllFilesContent()));
+        preloadedScripts.clear();
+
+        if (appArguments.isJournalCache()) {
+            sqlScriptDaoOra.setJournalCache(JournalCache.load(getJournalCacheFile()));
+        }
+    }
+
+    private File getJournalCacheFile() {
+        DbCnnCredentials cnnCredentials = appArguments.getDbCredentials(OWNER);
+        String key = DigestUtils.sha1Hex(cnnCredentials.getOracleUrl() + "|" + cnnCredentials.getSchemaName().toLowerCase());
+        return new File(SystemUtils.getUserHome(), JOURNAL_CACHE_DIR + File.separator + key + ".json");
     }
 
     private File createTempDirectory() {
@@ -65,19 +106,31 @@ public class DbScriptFacade {
 
     public List<SqlScript> getNotExecutedScripts() {
         Map<String, SqlScript> savedScripts = sqlScriptDaoOra.readMap();
-        List<SqlScript> newScripts = scriptsInDir.stream()
-                                                 .filter(script -> !savedScripts.containsKey(script.getName()))
-                                                 .collect(Collectors.toList());
-        if (!appArguments.isReadAllFilesContent()) {
-            newScripts.forEach(SqlScript::loadContentFromFile);
-        }
+        List<SqlScript> newScripts = scriptsInDir.getScriptsNotIn(savedScripts);
+        // Content of new scripts is loaded lazily: before saving to DB or by the script prefetcher during execution
         return newScripts;
     }
 
+    /**
+     * Scripts from the scripts directory with the given names whose saved execution failed, mapped by name.
+     * Scripts which aren't found or were executed are skipped.
+     */
+    public Map<String, SqlScript> getFailedScripts(Collection<String> names) {
+        Map<String, SqlScript> savedScripts = sqlScriptDaoOra.readMap();
+        Map<String, SqlScript> failedScripts = new HashMap<>();
+        for (String name : names) {
+            SqlScript savedScript = savedScripts.get(name);
+            SqlScript script = scriptsInDir.getScript(name);
+            if (savedScript != null && savedScript.getStatus() != ScriptStatus.EXECUTED && script != null) {
+                script.setId(savedScript.getId());
+                failedScripts.put(name, script);
+            }
+        }
+        return failedScripts;
+    }
+
     public List<SqlScript> getDevelopmentScripts() {
-        List<SqlScript> newScripts = scriptsInDir.stream()
-                                                 .filter(s -> s.getOrderNumber() < MAX_DEVELOPMENT_ORDER_NUMBER)
-                                                 .collect(Collectors.toList());
+        List<SqlScript> newScripts = scriptsInDir.getScriptsWithOrderNumberLessThan(MAX_DEVELOPMENT_ORDER_NUMBER);
         if (!appArguments.isReadAllFilesContent()) {
             newScripts.forEach(SqlScript::loadContentFromFile);
         }
@@ -85,8 +138,12 @@ public class DbScriptFacade {
     }
 
     private boolean isIgnoredScript(SqlScript script) {
-        String[] parts = script.getName().split("_");
-        boolean isDevScript = parts.length <= 1 || !StringUtils.isNumeric(parts[0]);
+        // same as splitting by "_": numeric first part followed by at least one non-empty part
+        String name = script.getName();
+        int separatorIndex = name.indexOf('_');
+        boolean isDevScript = separatorIndex < 0
+                || !StringUtils.isNumeric(name.substring(0, separatorIndex))
+                || StringUtils.containsOnly(name.substring(separatorIndex), '_');
         if (isDevScript) {
             logger.info("Dev script [" + script.getName() + "] was ignored");
         }
@@ -125,60 +182,179 @@ public class DbScriptFacade {
         }
     }
 
+    /**
+     * Starts loading and hashing the script file in background, so the next scan of the scripts directory
+     * doesn't read it again. Preloaded script is used only if the file wasn't modified since.
+     */
+    public void preloadScript(File file) {
+        if (!isScriptFile(file)) {
+            return;
+        }
+        preloadedScripts.put(file.toPath().toAbsolutePath().normalize(), CompletableFuture.supplyAsync(
+                () -> discoverScript(true, () -> createScript(new FileSystemResource(file), true))));
+    }
+
+    /**
+     * Updates scripts of the given files only, instead of scanning the whole scripts directory again.
+     * Scripts whose file modification time didn't change are kept, scripts whose files were deleted are removed.
+     */
+    public void refreshScripts(Collection<File> files) {
+        if (ResourceResolveUtils.containsClassPathScripts()) {
+            init();
+            return;
+        }
+        boolean readContent = appArguments.isReadAllFilesContent();
+        List<SqlScript> changedScripts = new ArrayList<>();
+        List<String> removedNames = new ArrayList<>();
+        for (File file : files) {
+            if (!isScriptFile(file)) {
+                continue;
+            }
+            SqlScript current = scriptsInDir.getScript(file.getName());
+            if (!file.isFile()) {
+                if (current != null) {
+                    removedNames.add(current.getName());
+                }
+                continue;
+            }
+            if (current != null && current.getTs().getTime() == file.lastModified()) {
+                continue;
+            }
+            Resource resource = new FileSystemResource(file);
+            SqlScript preloaded = getPreloadedScript(resource);
+            SqlScript script = preloaded != null ? preloaded
+                    : discoverScript(readContent, () -> createScript(resource, readContent));
+            if (!isIgnoredScript(script)) {
+                changedScripts.add(script);
+            }
+        }
+        scriptsInDir = scriptsInDir.update(changedScripts, removedNames);
+        preloadedScripts.clear();
+        logger.debug("Scripts refreshed: [{}] added or changed, [{}] removed", changedScripts.size(), removedNames.size());
+    }
+
+    private boolean isScriptFile(File file) {
+        Path path = file.toPath().toAbsolutePath().normalize();
+        return appArguments.getScriptsDirectory() != null && path.toString().endsWith(".sql")
+                && path.getParent().equals(appArguments.getScriptsDirectory().toPath().toAbsolutePath().normalize());
+    }
+
+    /**
+     * @return null if the script wasn't preloaded, failed to load or its file was modified since
+     */
+    private SqlScript getPreloadedScript(Resource resource) {
+        if (preloadedScripts.isEmpty() || !resource.isFile()) {
+            return null;
+        }
+        try {
+            File file = resource.getFile();
+            CompletableFuture<SqlScript> preloaded = preloadedScripts.remove(file.toPath().toAbsolutePath().normalize());
+            if (preloaded == null) {
+                return null;
+            }
+            SqlScript script = preloaded.join();
+            return script.getTs().getTime() == file.lastModified() ? script : null;
+        } catch (IOException | CompletionException e) {
+            return null;
+        }
+    }
+
     private List<SqlScript> createScriptsFromResources(boolean readAllScriptsContent) {
+        if (ScriptManifest.exists()) {
+            return ScriptManifest.read()
+                                 .stream()
+                                 .map(entry -> discoverScript(false,
+                                         () -> SqlScript.create(entry, ScriptManifest.getScriptResource(entry),
+                                                                scriptTextCache)))
+                                 .filter(s -> !isIgnoredScript(s))
+                                 .sorted()
+                                 .toList();
+        }
         return ResourceResolveUtils.resolveScriptResources(appArguments.getScriptsDirectory())
                                    .stream()
                                    .map(resource -> {
-                                       try {
-                                           return SqlScript.create(resource, readAllScriptsContent);
-                                       } catch (IOException e) {
-                                           throw new RuntimeException("Unable to create SqlScript instance for [" + resource + "]", e);
-                                       }
+                                       SqlScript preloaded = getPreloadedScript(resource);
+                                       return preloaded != null ? preloaded : discoverScript(readAllScriptsContent,
+                                               () -> createScript(resource, readAllScriptsContent));
                                    })
                                    .filter(s -> !isIgnoredScript(s))
                                    .sorted()
                                    .toList();
     }
 
+    private SqlScript createScript(Resource resource, boolean readContent) {
+        try {
+            return SqlScript.create(resource, readContent, scriptTextCache);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create SqlScript instance for [" + resource + "]", e);
+        }
+    }
+
+    private static SqlScript discoverScript(boolean contentLoaded, Supplier<SqlScript> scriptFactory) {
+        ScriptDiscoveryEvent event = new ScriptDiscoveryEvent();
+        event.begin();
+        SqlScript script = scriptFactory.get();
+        if (event.shouldCommit()) {
+            event.scriptName = script.getName();
+            event.contentLoaded = contentLoaded;
+            event.commit();
+        }
+        return script;
+    }
+
+    /**
+     * Returns scripts changed since they were saved to db_script. Hashes of the unchanged scripts computed by
+     * a legacy {@link ScriptDigest} are upgraded to the current one along the way.
+     */
     public List<SqlScript> getUpdatedScripts() {
         List<SqlScript> updatedScripts = new ArrayList<>();
+        List<SqlScript> scriptsWithLegacyHash = new ArrayList<>();
         Map<String, SqlScript> dbScripts = sqlScriptDaoOra.readMap();
 
-        for (SqlScript scriptInDir : scriptsInDir) {
+        for (SqlScript scriptInDir : scriptsInDir.getScripts()) {
             if (!dbScripts.containsKey(scriptInDir.getName())) {
                 continue;
             }
             SqlScript savedScript = dbScripts.get(scriptInDir.getName());
-            if (!scriptInDir.getFileHash().equals(savedScript.getFileHash())) {
-                scriptInDir.setId(savedScript.getId());
+            if (scriptInDir.getFileHash().equals(savedScript.getFileHash())) {
+                continue;
+            }
+            scriptInDir.setId(savedScript.getId());
+            if (scriptInDir.isContentHash(savedScript.getFileHash())) {
+                scriptsWithLegacyHash.add(scriptInDir);
+            } else {
                 updatedScripts.add(scriptInDir);
             }
         }
 
+        if (!scriptsWithLegacyHash.isEmpty()) {
+            logger.debug("Upgrading hashes of [{}] scripts to [{}]", scriptsWithLegacyHash.size(), ScriptDigest.CURRENT);
+            sqlScriptDaoOra.batchUpdateFileHash(scriptsWithLegacyHash);
+        }
         return updatedScripts;
     }
 
     public void batchUpdate(List<SqlScript> updatedScripts) {
+        updatedScripts.forEach(SqlScript::ensureContentLoaded);
         sqlScriptDaoOra.batchUpdate(updatedScripts);
     }
 
     public void batchCreate(List<SqlScript> scripts) {
+        scripts.forEach(SqlScript::ensureContentLoaded);
         sqlScriptDaoOra.createAll(scripts);
     }
 
     public Map<String, SqlScript> getDeletedScriptsMap() {
         Map<String, SqlScript> dbScripts = sqlScriptDaoOra.readMap();
-        Map<String, SqlScript> scriptsInDirMap = scriptsInDir.stream()
-                                                             .collect(Collectors.toMap(SqlScript::getName, Function.identity()));
 
         Map<String, SqlScript> deletedScripts = dbScripts.values().stream()
-                                                         .filter(dbScript -> !scriptsInDirMap.containsKey(dbScript.getName()))
+                                                         .filter(dbScript -> !scriptsInDir.contains(dbScript.getName()))
                                                          .collect(Collectors.toMap(SqlScript::getName, Function.identity()));
 
         List<SqlScript> commitsDeletedWithoutRollbacks =
                 deletedScripts.values().stream()
                               .filter(script -> script.getType() == COMMIT)
-                              .filter(script -> scriptsInDirMap.containsKey(script.getRollbackName()))
+                              .filter(script -> scriptsInDir.contains(script.getRollbackName()))
                               .filter(script -> !deletedScripts.containsKey(script.getRollbackName()))
                               .collect(Collectors.toList());
         if (!commitsDeletedWithoutRollbacks.isEmpty()) {
@@ -187,6 +363,12 @@ public class DbScriptFacade {
             throw new ScmdbException(ERROR_MSG_COMMIT_DELETED_WITHOUT_ROLLBACK);
         }
 
+        List<SqlScript> deletedRollbacks = deletedScripts.values().stream()
+                                                         .filter(script -> script.getType() == ROLLBACK)
+                                                         .toList();
+        Map<Long, String> texts = sqlScriptDaoOra.readTexts(deletedRollbacks.stream().map(SqlScript::getId).toList());
+        deletedRollbacks.forEach(script -> script.setText(texts.get(script.getId())));
+
         return deletedScripts;
     }
 
@@ -198,10 +380,37 @@ public class DbScriptFacade {
 
     public void create(SqlScript script) {
         sqlScriptDaoOra.create(script);
+        if (script.getOutput() != null) {
+            scriptOutputDaoOra.create(script, runTs);
+        }
+    }
+
+    /**
+     * Purges script output older than the configured retention and compacts output still stored inline in db_script
+     * rows older than the retention. Full inline output of the rows written before the output history table was
+     * introduced is copied to the history once, before it's compacted.
+     * Runs in background, so the caller may continue with other work and join the future at the end of the run.
+     *
+     * @return future with the number of purged output records
+     */
+    public CompletableFuture<Integer> applyOutputRetentionAsync() {
+        int retentionDays = appArguments.getOutputRetentionDays();
+        if (retentionDays <= 0) {
+            return CompletableFuture.completedFuture(0);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            if (scriptOutputDaoOra.isInlineOutputToMigrate()) {
+                scriptOutputDaoOra.migrateInlineOutput();
+            }
+            if (sqlScriptDaoOra.isInlineOutputToCompact(retentionDays)) {
+                sqlScriptDaoOra.compactInlineOutput(retentionDays);
+            }
+            return scriptOutputDaoOra.deleteOlderThan(retentionDays);
+        });
     }
 
     public void createAllFromDirectory() {
-        sqlScriptDaoOra.createAll(createScriptsFromResources(true));
+        batchCreate(createScriptsFromResources(true));
     }
 
     public void delete(Long id) {
@@ -231,6 +440,15 @@ public class DbScriptFacade {
         }
     }
 
+    public boolean isOutputTableExist() {
+        try {
+            return scriptOutputDaoOra.isOutputTableExist();
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
     public void checkDbConnection() {
         sqlScriptDaoOra.checkDbConnection();
     }
@@ -0,0 +1,182 @@
+package com.onevizion.scmdb.facade;
+
+import com.onevizion.scmdb.AppArguments;
+import com.onevizion.scmdb.ColorLogger;
+import com.onevizion.scmdb.ScriptHelper;
+import com.onevizion.scmdb.dao.JobControlDaoOra;
+import com.onevizion.scmdb.vo.DbObject;
+import com.onevizion.scmdb.vo.JobSuspensionMode;
+import com.onevizion.scmdb.vo.SqlScript;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static com.onevizion.scmdb.ColorLogger.Color.GREEN;
+import static com.onevizion.scmdb.ColorLogger.Color.YELLOW;
+import static com.onevizion.scmdb.vo.SchemaType.OWNER;
+
+/**
+ * Disables database jobs for --force-disable-jobs.
+ * In ALL mode pkg_job_control disables all jobs before the run and enables them after it.
+ * In TARGETED mode only the scheduler jobs depending on objects changed by the scripts to execute are disabled,
+ * each one is enabled again as soon as the last script changing its dependencies completes.
+ */
+@Component
+public class JobControlFacade {
+    private static final int PARALLELISM = 4;
+    private static final int RUNNING_JOB_WAIT_SECONDS = 30;
+
+    @Autowired
+    private JobControlDaoOra jobControlDaoOra;
+
+    @Autowired
+    private AppArguments appArguments;
+
+    @Autowired
+    private ColorLogger logger;
+
+    // disabled jobs and index of the last script changing their dependencies
+    private final Map<String, Integer> lastScriptByJob = new HashMap<>();
+    private int completedScripts;
+
+    public void start() {
+        if (appArguments.getJobSuspensionMode() == JobSuspensionMode.ALL) {
+            logger.info("Suspend DB Jobs");
+            logger.info("{}", jobControlDaoOra.disableAllJobs());
+        }
+    }
+
+    /**
+     * Disables the jobs depending on objects changed by the scripts, which are executed next in the given order
+     */
+    public void suspendFor(List<SqlScript> scripts) {
+        if (appArguments.getJobSuspensionMode() != JobSuspensionMode.TARGETED) {
+            return;
+        }
+        resumeAll();
+        completedScripts = 0;
+
+        List<Set<String>> objectNamesByScript = scripts.stream().map(this::getChangedObjectNames).toList();
+        Set<String> objectNames = objectNamesByScript.stream().flatMap(Set::stream).collect(Collectors.toSet());
+        if (objectNames.isEmpty()) {
+            return;
+        }
+        Map<String, Set<String>> dependenciesByJob = jobControlDaoOra.readJobDependencies(new ArrayList<>(objectNames));
+        dependenciesByJob.forEach((job, dependencies) -> {
+            for (int i = objectNamesByScript.size() - 1; i >= 0; i--) {
+                if (!Collections.disjoint(objectNamesByScript.get(i), dependencies)) {
+                    lastScriptByJob.put(job, i);
+                    break;
+                }
+            }
+        });
+        if (lastScriptByJob.isEmpty()) {
+            logger.info("No DB jobs depend on objects changed by the scripts");
+            return;
+        }
+        logger.info("Suspend DB jobs depending on objects changed by the scripts: {}", lastScriptByJob.keySet());
+        runInParallel(lastScriptByJob.keySet(), this::suspendJob);
+    }
+
+    /**
+     * Enables the jobs which don't depend on objects changed by the rest of the scripts
+     */
+    public void scriptCompleted() {
+        if (lastScriptByJob.isEmpty()) {
+            return;
+        }
+        int completed = completedScripts++;
+        List<String> jobs = lastScriptByJob.entrySet()
+                                           .stream()
+                                           .filter(entry -> entry.getValue() <= completed)
+                                           .map(Map.Entry::getKey)
+                                           .toList();
+        if (!jobs.isEmpty()) {
+            jobs.forEach(lastScriptByJob::remove);
+            runInParallel(jobs, this::resumeJob);
+        }
+    }
+
+    public void finish() {
+        if (appArguments.getJobSuspensionMode() == JobSuspensionMode.ALL) {
+            logger.info("Enable DB Jobs");
+            logger.info("{}", jobControlDaoOra.enableAllJobs());
+        } else {
+            resumeAll();
+        }
+    }
+
+    private void resumeAll() {
+        if (!lastScriptByJob.isEmpty()) {
+            List<String> jobs = new ArrayList<>(lastScriptByJob.keySet());
+            lastScriptByJob.clear();
+            runInParallel(jobs, this::resumeJob);
+        }
+    }
+
+    private Set<String> getChangedObjectNames(SqlScript script) {
+        if (script.getSchemaType() != OWNER) {
+            return Set.of();
+        }
+        Set<String> objectNames = new HashSet<>();
+        for (DbObject dbObject : ScriptHelper.getChangedDbObjects(script)) {
+            objectNames.add(dbObject.getName().toUpperCase());
+        }
+        return objectNames;
+    }
+
+    /**
+     * Disables the job and waits for its running instance to complete
+     */
+    private void suspendJob(String job) {
+        try {
+            jobControlDaoOra.disableJob(job);
+            for (int i = 0; i < RUNNING_JOB_WAIT_SECONDS && jobControlDaoOra.isJobRunning(job); i++) {
+                TimeUnit.SECONDS.sleep(1);
+            }
+            if (jobControlDaoOra.isJobRunning(job)) {
+                logger.warn("DB job [{}] is disabled but still running", YELLOW, job);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Unable to disable DB job [{}]: [{}]", YELLOW, job, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void resumeJob(String job) {
+        try {
+            jobControlDaoOra.enableJob(job);
+            logger.info("DB job [{}] enabled", GREEN, job);
+        } catch (DataAccessException e) {
+            logger.warn("Unable to enable DB job [{}]: [{}]", YELLOW, job, e.getMessage());
+        }
+    }
+
+    private void runInParallel(Collection<String> jobs, Consumer<String> action) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(PARALLELISM, jobs.size()));
+        try {
+            CompletableFuture.allOf(jobs.stream()
+                                        .map(job -> CompletableFuture.runAsync(() -> action.accept(job), executor))
+                                        .toArray(CompletableFuture[]::new))
+                             .join();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.onevizion.scmdb.facade;
+
+import com.onevizion.scmdb.ColorLogger;
+import com.onevizion.scmdb.dao.DbScriptCheckpointDaoOra;
+import com.onevizion.scmdb.vo.ScriptCheckpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Keeps checkpoints of the scripts which stopped on error in db_script_checkpoint, so they can be resumed
+ * from the failed statement with --resume. Checkpoint is removed once the script is resumed successfully.
+ */
+@Component
+public class ScriptCheckpointFacade {
+
+    @Autowired
+    private DbScriptCheckpointDaoOra checkpointDaoOra;
+
+    @Autowired
+    private ColorLogger logger;
+
+    /**
+     * Saves the checkpoint, a failure is only logged as it mustn't hide the script error
+     */
+    public boolean save(ScriptCheckpoint checkpoint) {
+        try {
+            checkpointDaoOra.save(checkpoint);
+            return true;
+        } catch (DataAccessException e) {
+            logger.warn("Unable to save checkpoint of script [{}]: [{}]", ColorLogger.Color.YELLOW,
+                        checkpoint.getName(), e.getMessage());
+            return false;
+        }
+    }
+
+    public List<ScriptCheckpoint> readAll() {
+        return checkpointDaoOra.readAll();
+    }
+
+    public void delete(ScriptCheckpoint checkpoint) {
+        checkpointDaoOra.delete(checkpoint.getName());
+    }
+
+    public boolean isCheckpointTableExist() {
+        try {
+            return checkpointDaoOra.isCheckpointTableExist();
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.onevizion.scmdb.facade;
+
+import com.onevizion.scmdb.AppArguments;
+import com.onevizion.scmdb.ColorLogger;
+import com.onevizion.scmdb.dao.DbScriptRunDaoOra;
+import com.onevizion.scmdb.vo.ScriptRun;
+import com.onevizion.scmdb.vo.SqlScript;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records executed scripts into db_script_run/db_script_run_item and predicts durations from that history.
+ * The run record is created lazily, so runs which execute nothing leave no trace.
+ */
+@Component
+public class ScriptRunFacade {
+
+    private static final String MODE_EXEC = "exec";
+    private static final String MODE_BACKPORT = "backport";
+    private static final String UNKNOWN_HOST = "unknown";
+
+    @Autowired
+    private DbScriptRunDaoOra scriptRunDaoOra;
+
+    @Autowired
+    private AppArguments appArguments;
+
+    @Autowired
+    private ColorLogger logger;
+
+    private final Date startTs = new Date();
+    private ScriptRun run;
+
+    public void recordScript(SqlScript script) {
+        if (script.getDurationMillis() == null) {
+            return;
+        }
+        scriptRunDaoOra.createItem(getOrCreateRun().getId(), script);
+    }
+
+    public void recordCompilePhase(Duration duration) {
+        if (run == null) {
+            return;
+        }
+        run.setCompileMillis(run.getCompileMillis() + duration.toMillis());
+        scriptRunDaoOra.update(run);
+    }
+
+    public void recordDdlPhase(Duration duration) {
+        if (run == null) {
+            return;
+        }
+        run.setDdlMillis(duration.toMillis());
+        run.setEndTs(new Date());
+        scriptRunDaoOra.update(run);
+    }
+
+    public void finish() {
+        if (run == null) {
+            return;
+        }
+        run.setEndTs(new Date());
+        try {
+            scriptRunDaoOra.update(run);
+        } catch (DataAccessException e) {
+            logger.warn("Unable to save run history: [{}]", ColorLogger.Color.YELLOW, e.getMessage());
+        }
+    }
+
+    public Map<String, Long> readAvgDurations(List<SqlScript> scripts) {
+        try {
+            return scriptRunDaoOra.readAvgDurations(scripts.stream().map(SqlScript::getName).toList());
+        } catch (Exception e) {
+            logger.warn("Unable to read script execution history: [{}]", ColorLogger.Color.YELLOW, e.getMessage());
+            return Map.of();
+        }
+    }
+
+    public boolean isRunTableExist() {
+        try {
+            return scriptRunDaoOra.isRunTableExist();
+        } catch (Exception e) {
+            logger.error(e.getMessage());
+            return false;
+        }
+    }
+
+    private ScriptRun getOrCreateRun() {
+        if (run == null) {
+            ScriptRun newRun = new ScriptRun();
+            newRun.setStartTs(startTs);
+            newRun.setHost(getHostName());
+            newRun.setMode(appArguments.isBackport() ? MODE_BACKPORT : MODE_EXEC);
+            scriptRunDaoOra.create(newRun);
+            run = newRun;
+        }
+        return run;
+    }
+
+    private String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return UNKNOWN_HOST;
+        }
+    }
+}
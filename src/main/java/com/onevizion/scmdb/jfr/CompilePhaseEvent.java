@@ -0,0 +1,17 @@
+package com.onevizion.scmdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.onevizion.scmdb.CompilePhase")
+@Label("Compile Phase")
+@Description("Compilation of invalid objects in the _user, _rpt and _pkg schemas")
+@Category("SCMDB")
+@StackTrace(false)
+public class CompilePhaseEvent extends jdk.jfr.Event {
+    @Label("Succeeded")
+    public boolean succeeded;
+}
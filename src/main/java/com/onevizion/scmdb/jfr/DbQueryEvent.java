@@ -0,0 +1,28 @@
+package com.onevizion.scmdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.onevizion.scmdb.DbQuery")
+@Label("DB Query")
+@Description("SQL statement executed through the DAO layer")
+@Category("SCMDB")
+public class DbQueryEvent extends jdk.jfr.Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("SQL")
+    public String sql;
+
+    @Label("Rows")
+    @Description("Rows fetched by a query or affected by an update")
+    public long rows;
+
+    @Label("Bytes")
+    @Description("Approximate in-memory size of the fetched string and binary values")
+    @DataAmount
+    public long bytes;
+}
@@ -0,0 +1,26 @@
+package com.onevizion.scmdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.onevizion.scmdb.DdlFileWrite")
+@Label("DDL File Write")
+@Description("Comparison and write of a generated DDL file")
+@Category("SCMDB")
+@StackTrace(false)
+public class DdlFileWriteEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("Size")
+    @DataAmount
+    public long size;
+
+    @Label("Changed")
+    @Description("File content differed from the generated DDL and was rewritten")
+    public boolean changed;
+}
@@ -0,0 +1,40 @@
+package com.onevizion.scmdb.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * Flight recording of the whole run with the JVM "profile" settings and all SCMDB events.
+ * Recording is dumped to the file when the JVM exits.
+ */
+public class FlightRecording {
+    private static final String SETTINGS = "profile";
+
+    private FlightRecording() {
+    }
+
+    public static void start(File destination) {
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration(SETTINGS));
+            recording.setName("scmdb");
+            recording.setToDisk(true);
+            recording.setDumpOnExit(true);
+            recording.setDestination(destination.toPath());
+            recording.enable(ScriptDiscoveryEvent.class);
+            recording.enable(ScriptHashEvent.class);
+            recording.enable(DbQueryEvent.class);
+            recording.enable(ScriptExecutionEvent.class);
+            recording.enable(CompilePhaseEvent.class);
+            recording.enable(DdlFileWriteEvent.class);
+            recording.enable(ScriptProgressEvent.class);
+            recording.enable(LockWaitEvent.class);
+            recording.start();
+        } catch (IOException | ParseException e) {
+            throw new RuntimeException("Can't start flight recording to [" + destination.getAbsolutePath() + "]", e);
+        }
+    }
+}
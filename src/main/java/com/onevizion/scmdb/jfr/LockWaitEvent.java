@@ -0,0 +1,26 @@
+package com.onevizion.scmdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.onevizion.scmdb.LockWait")
+@Label("Lock Wait")
+@Description("Preflight check of a script for sessions locking or executing the objects it changes")
+@Category("SCMDB")
+@StackTrace(false)
+public class LockWaitEvent extends jdk.jfr.Event {
+    @Label("Script Name")
+    public String scriptName;
+
+    @Label("Policy")
+    public String policy;
+
+    @Label("Conflicts")
+    public int conflicts;
+
+    @Label("Cleared")
+    public boolean cleared;
+}
@@ -0,0 +1,159 @@
+package com.onevizion.scmdb.jfr;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.support.KeyHolder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.function.Supplier;
+
+/**
+ * JdbcTemplate which emits {@link DbQueryEvent} for every statement. Result sets are wrapped to count rows and
+ * fetched bytes only while the event is enabled in a running recording, otherwise calls go straight to JdbcTemplate.
+ * NamedParameterJdbcTemplate delegates to this template, so named parameter queries are recorded as well.
+ */
+public class RecordingJdbcTemplate extends JdbcTemplate {
+
+    public RecordingJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    public <T> T query(PreparedStatementCreator psc, PreparedStatementSetter pss, ResultSetExtractor<T> rse)
+            throws DataAccessException {
+        DbQueryEvent event = new DbQueryEvent();
+        if (!event.isEnabled()) {
+            return super.query(psc, pss, rse);
+        }
+        return record(event, "query", getSql(psc),
+                () -> super.query(psc, pss, rs -> rse.extractData(countingResultSet(rs, event))));
+    }
+
+    @Override
+    public <T> T query(String sql, ResultSetExtractor<T> rse) throws DataAccessException {
+        DbQueryEvent event = new DbQueryEvent();
+        if (!event.isEnabled()) {
+            return super.query(sql, rse);
+        }
+        return record(event, "query", sql,
+                () -> super.query(sql, rs -> rse.extractData(countingResultSet(rs, event))));
+    }
+
+    @Override
+    protected int update(PreparedStatementCreator psc, PreparedStatementSetter pss) throws DataAccessException {
+        DbQueryEvent event = new DbQueryEvent();
+        if (!event.isEnabled()) {
+            return super.update(psc, pss);
+        }
+        return record(event, "update", getSql(psc), () -> {
+            int rows = super.update(psc, pss);
+            event.rows = rows;
+            return rows;
+        });
+    }
+
+    @Override
+    public int update(PreparedStatementCreator psc, KeyHolder generatedKeyHolder) throws DataAccessException {
+        DbQueryEvent event = new DbQueryEvent();
+        if (!event.isEnabled()) {
+            return super.update(psc, generatedKeyHolder);
+        }
+        return record(event, "update", getSql(psc), () -> {
+            int rows = super.update(psc, generatedKeyHolder);
+            event.rows = rows;
+            return rows;
+        });
+    }
+
+    @Override
+    public int update(String sql) throws DataAccessException {
+        DbQueryEvent event = new DbQueryEvent();
+        if (!event.isEnabled()) {
+            return super.update(sql);
+        }
+        return record(event, "update", sql, () -> {
+            int rows = super.update(sql);
+            event.rows = rows;
+            return rows;
+        });
+    }
+
+    @Override
+    public int[] batchUpdate(String sql, BatchPreparedStatementSetter pss) throws DataAccessException {
+        DbQueryEvent event = new DbQueryEvent();
+        if (!event.isEnabled()) {
+            return super.batchUpdate(sql, pss);
+        }
+        return record(event, "batch", sql, () -> {
+            int[] counts = super.batchUpdate(sql, pss);
+            for (int count : counts) {
+                // Statement.SUCCESS_NO_INFO is negative, count the row as affected
+                event.rows += count < 0 ? 1 : count;
+            }
+            return counts;
+        });
+    }
+
+    @Override
+    public void execute(String sql) throws DataAccessException {
+        DbQueryEvent event = new DbQueryEvent();
+        if (!event.isEnabled()) {
+            super.execute(sql);
+            return;
+        }
+        record(event, "execute", sql, () -> {
+            super.execute(sql);
+            return null;
+        });
+    }
+
+    private static <T> T record(DbQueryEvent event, String operation, String sql, Supplier<T> statement) {
+        event.operation = operation;
+        event.sql = sql;
+        event.begin();
+        try {
+            return statement.get();
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static String getSql(Object statementCreator) {
+        return statementCreator instanceof SqlProvider sqlProvider ? sqlProvider.getSql() : null;
+    }
+
+    private static ResultSet countingResultSet(ResultSet resultSet, DbQueryEvent event) {
+        return (ResultSet) Proxy.newProxyInstance(RecordingJdbcTemplate.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    Object value = invoke(resultSet, method, args);
+                    if (value instanceof Boolean hasRow && method.getName().equals("next")) {
+                        if (hasRow) {
+                            event.rows++;
+                        }
+                    } else if (value instanceof String string) {
+                        event.bytes += string.length() * 2L;
+                    } else if (value instanceof byte[] bytes) {
+                        event.bytes += bytes.length;
+                    }
+                    return value;
+                });
+    }
+
+    private static Object invoke(ResultSet resultSet, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(resultSet, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
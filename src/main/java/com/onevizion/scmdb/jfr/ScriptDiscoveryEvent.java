@@ -0,0 +1,20 @@
+package com.onevizion.scmdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.onevizion.scmdb.ScriptDiscovery")
+@Label("Script Discovery")
+@Description("Script file found in the scripts directory or in the bundled scripts manifest")
+@Category("SCMDB")
+@StackTrace(false)
+public class ScriptDiscoveryEvent extends jdk.jfr.Event {
+    @Label("Script Name")
+    public String scriptName;
+
+    @Label("Content Loaded")
+    public boolean contentLoaded;
+}
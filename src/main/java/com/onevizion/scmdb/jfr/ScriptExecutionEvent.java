@@ -0,0 +1,23 @@
+package com.onevizion.scmdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.onevizion.scmdb.ScriptExecution")
+@Label("Script Execution")
+@Description("Execution of a script with SQLcl")
+@Category("SCMDB")
+@StackTrace(false)
+public class ScriptExecutionEvent extends jdk.jfr.Event {
+    @Label("Script Name")
+    public String scriptName;
+
+    @Label("Schema")
+    public String schema;
+
+    @Label("Status")
+    public String status;
+}
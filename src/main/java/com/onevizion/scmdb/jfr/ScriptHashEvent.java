@@ -0,0 +1,24 @@
+package com.onevizion.scmdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.onevizion.scmdb.ScriptHash")
+@Label("Script Hash")
+@Description("Hash computation of the script text")
+@Category("SCMDB")
+@StackTrace(false)
+public class ScriptHashEvent extends jdk.jfr.Event {
+    @Label("Script Name")
+    public String scriptName;
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Text Length")
+    @Description("Length of the script text in characters")
+    public int textLength;
+}
@@ -0,0 +1,47 @@
+package com.onevizion.scmdb.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.onevizion.scmdb.ScriptProgress")
+@Label("Script Progress")
+@Description("State of the session executing a script, sampled by the progress monitor")
+@Category("SCMDB")
+@StackTrace(false)
+public class ScriptProgressEvent extends jdk.jfr.Event {
+    @Label("Script Name")
+    public String scriptName;
+
+    @Label("Statement Line")
+    public int statementLine;
+
+    @Label("SQL ID")
+    public String sqlId;
+
+    @Label("Wait Event")
+    public String waitEvent;
+
+    @Label("Wait Class")
+    public String waitClass;
+
+    @Label("Wait Time")
+    @Timespan(Timespan.SECONDS)
+    public long waitTime;
+
+    @Label("Blocking Session")
+    public int blockingSession;
+
+    @Label("Long Operation")
+    public String operation;
+
+    @Label("Percent Done")
+    public int percentDone;
+
+    @Label("Time Remaining")
+    @Timespan(Timespan.SECONDS)
+    public long timeRemaining;
+}
@@ -0,0 +1,65 @@
+package com.onevizion.scmdb.vo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+
+/**
+ * Event printed by the backport pipeline to stdout as a JSON line
+ */
+public class BackportEvent {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public enum Type {
+        WRITTEN /* Script or DDL file was created or changed */,
+        DELETED /* Script or DDL file was deleted */,
+        RESULT /* Pipeline completed, always the last event */
+    }
+
+    private Type type;
+    private File file;
+    private BackportResult result;
+
+    public static BackportEvent fromJson(String json) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(json);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to parse backport event JSON: " + e.getMessage(), e);
+        }
+
+        BackportEvent event = new BackportEvent();
+        String type = root.path("event").asText();
+        switch (type) {
+            case "written" -> event.type = Type.WRITTEN;
+            case "deleted" -> event.type = Type.DELETED;
+            case "result" -> event.type = Type.RESULT;
+            default -> throw new RuntimeException("Unknown backport event [" + type + "]: " + json);
+        }
+        if (event.type == Type.RESULT) {
+            event.result = BackportResult.fromJson(root);
+        } else {
+            event.file = new File(root.path("path").asText());
+        }
+        return event;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * File of WRITTEN and DELETED events
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Result of the RESULT event
+     */
+    public BackportResult getResult() {
+        return result;
+    }
+}
@@ -1,7 +1,6 @@
 package com.onevizion.scmdb.vo;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,11 +14,8 @@ public class BackportResult {
     private List<String> warnings;
     private String error;
 
-    public static BackportResult fromJson(String json) {
+    public static BackportResult fromJson(JsonNode root) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(json);
-
             BackportResult result = new BackportResult();
             result.shouldRunScmdb = root.path("should_run_scmdb").asBoolean(false);
             result.scriptsWritten = root.path("scripts_written").asInt(0);
@@ -1,9 +1,12 @@
 package com.onevizion.scmdb.vo;
 
+import java.io.Reader;
+
 public class DbObject {
     private String name;
     private DbObjectType type;
     private String ddl;
+    private Reader ddlReader;
 
     public DbObject(String name, DbObjectType type) {
         this.name = name.toLowerCase();
@@ -28,6 +31,17 @@ public class DbObject {
         this.ddl = ddl;
     }
 
+    /**
+     * DDL of a PL/SQL source streamed from the CLOB, readable only while the object is passed to the DdlDao consumer
+     */
+    public Reader getDdlReader() {
+        return ddlReader;
+    }
+
+    public void setDdlReader(Reader ddlReader) {
+        this.ddlReader = ddlReader;
+    }
+
     public DbObjectType getType() {
         return type;
     }
@@ -0,0 +1,28 @@
+package com.onevizion.scmdb.vo;
+
+/**
+ * Last DDL time of the object including its dependent objects (indexes, triggers, sequences of the table)
+ */
+public class DbObjectState {
+    private final DbObject dbObject;
+    private final String lastDdlTime;
+    private final int dependentsCount;
+
+    public DbObjectState(DbObject dbObject, String lastDdlTime, int dependentsCount) {
+        this.dbObject = dbObject;
+        this.lastDdlTime = lastDdlTime;
+        this.dependentsCount = dependentsCount;
+    }
+
+    public DbObject getDbObject() {
+        return dbObject;
+    }
+
+    public String getLastDdlTime() {
+        return lastDdlTime;
+    }
+
+    public int getDependentsCount() {
+        return dependentsCount;
+    }
+}
@@ -33,6 +33,13 @@ public enum DbObjectType {
         return changeKeywords;
     }
 
+    /**
+     * PL/SQL sources, their DDL is streamed to the files instead of being loaded into memory
+     */
+    public boolean isSource() {
+        return this == PACKAGE_BODY || this == PACKAGE_SPEC || this == TYPE_BODY || this == TYPE_SPEC;
+    }
+
     public static DbObjectType getByName(String objectType) {
         return Arrays.stream(values())
                      .filter(t -> t.getName().equals(objectType.toLowerCase()))
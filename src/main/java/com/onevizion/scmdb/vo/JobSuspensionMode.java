@@ -0,0 +1,9 @@
+package com.onevizion.scmdb.vo;
+
+public enum JobSuspensionMode {
+
+    ALL /* Disable all database jobs with pkg_job_control for the whole run */,
+    TARGETED /* Disable only the scheduler jobs depending on objects changed by the scripts to execute,
+        each job is enabled again as soon as the last script changing its dependencies completes */
+
+}
@@ -0,0 +1,79 @@
+package com.onevizion.scmdb.vo;
+
+/**
+ * Session which holds a DML lock on an object or is executing it, so DDL on the object would wait or fail
+ */
+public class LockConflict {
+    private String objectName;
+    private String objectType;
+    private boolean dmlLock;
+    private int sid;
+    private int serial;
+    private String username;
+    private String program;
+
+    public String getObjectName() {
+        return objectName;
+    }
+
+    public void setObjectName(String objectName) {
+        this.objectName = objectName;
+    }
+
+    public String getObjectType() {
+        return objectType;
+    }
+
+    public void setObjectType(String objectType) {
+        this.objectType = objectType;
+    }
+
+    /**
+     * Lock of a table held by a transaction, otherwise the object is in use by a running call
+     */
+    public boolean isDmlLock() {
+        return dmlLock;
+    }
+
+    public void setDmlLock(boolean dmlLock) {
+        this.dmlLock = dmlLock;
+    }
+
+    public int getSid() {
+        return sid;
+    }
+
+    public void setSid(int sid) {
+        this.sid = sid;
+    }
+
+    public int getSerial() {
+        return serial;
+    }
+
+    public void setSerial(int serial) {
+        this.serial = serial;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getProgram() {
+        return program;
+    }
+
+    public void setProgram(String program) {
+        this.program = program;
+    }
+
+    @Override
+    public String toString() {
+        return objectType.toLowerCase() + " " + objectName + (dmlLock ? " locked" : " in use") +
+                " by session " + sid + "," + serial + " (" + username + ", " + program + ")";
+    }
+}
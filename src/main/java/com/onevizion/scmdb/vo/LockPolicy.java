@@ -0,0 +1,11 @@
+package com.onevizion.scmdb.vo;
+
+public enum LockPolicy {
+
+    NONE /* Execute scripts without checking for sessions holding locks on the objects they change */,
+    WAIT /* Before each script wait with backoff until no session locks or executes the objects the script changes,
+        at most --lock-timeout seconds, then execute the script anyway */,
+    DDL_LOCK_TIMEOUT /* Report conflicting sessions and let DDL of the script wait for locks up to --lock-timeout
+        seconds (ddl_lock_timeout) instead of failing with ORA-00054 at once */
+
+}
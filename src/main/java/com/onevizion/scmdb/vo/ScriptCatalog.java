@@ -0,0 +1,99 @@
+package com.onevizion.scmdb.vo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable index of the scripts found in the scripts directory, built once per run and updated with individual
+ * scripts if files are changed during the run. Scripts are kept in execution order, lookups by name and order
+ * number don't rebuild maps or parse names.
+ */
+public class ScriptCatalog {
+    private static final int NO_ORDER_NUMBER = Integer.MIN_VALUE;
+
+    private final List<SqlScript> scripts;
+    private final Map<String, SqlScript> scriptsByName;
+    private final int[] orderNumbers;
+
+    /**
+     * @param sortedScripts scripts in execution order, names are unique
+     */
+    public ScriptCatalog(List<SqlScript> sortedScripts) {
+        int size = sortedScripts.size();
+        scripts = Collections.unmodifiableList(new ArrayList<>(sortedScripts));
+        scriptsByName = new HashMap<>(size * 4 / 3 + 1);
+        orderNumbers = new int[size];
+        for (int i = 0; i < size; i++) {
+            SqlScript script = scripts.get(i);
+            scriptsByName.put(script.getName(), script);
+            orderNumbers[i] = script.getOrderNumber() == null ? NO_ORDER_NUMBER : script.getOrderNumber();
+        }
+    }
+
+    public List<SqlScript> getScripts() {
+        return scripts;
+    }
+
+    public boolean contains(String name) {
+        return scriptsByName.containsKey(name);
+    }
+
+    /**
+     * @return null if there is no script with the name
+     */
+    public SqlScript getScript(String name) {
+        return scriptsByName.get(name);
+    }
+
+    /**
+     * Catalog with the given scripts added or replacing the scripts with the same names and the scripts
+     * with the given names removed
+     */
+    public ScriptCatalog update(Collection<SqlScript> addedOrReplaced, Collection<String> removedNames) {
+        if (addedOrReplaced.isEmpty() && removedNames.isEmpty()) {
+            return this;
+        }
+        Set<String> changedNames = new HashSet<>(removedNames);
+        addedOrReplaced.forEach(script -> changedNames.add(script.getName()));
+
+        List<SqlScript> updatedScripts = new ArrayList<>(scripts.size() + addedOrReplaced.size());
+        for (SqlScript script : scripts) {
+            if (!changedNames.contains(script.getName())) {
+                updatedScripts.add(script);
+            }
+        }
+        updatedScripts.addAll(addedOrReplaced);
+        // sorted list with a short unsorted tail is merged in linear time
+        updatedScripts.sort(null);
+        return new ScriptCatalog(updatedScripts);
+    }
+
+    /**
+     * Scripts with the order number less than the given one, scripts without the order number aren't included
+     */
+    public List<SqlScript> getScriptsWithOrderNumberLessThan(int orderNumber) {
+        List<SqlScript> result = new ArrayList<>();
+        for (int i = 0; i < orderNumbers.length; i++) {
+            if (orderNumbers[i] != NO_ORDER_NUMBER && orderNumbers[i] < orderNumber) {
+                result.add(scripts.get(i));
+            }
+        }
+        return result;
+    }
+
+    public List<SqlScript> getScriptsNotIn(Map<String, ?> scriptsByName) {
+        List<SqlScript> result = new ArrayList<>();
+        for (SqlScript script : scripts) {
+            if (!scriptsByName.containsKey(script.getName())) {
+                result.add(script);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+package com.onevizion.scmdb.vo;
+
+/**
+ * Position of the script which stopped on error: number and hash of the statements completed before the error.
+ * Execution resumes from the next statement.
+ */
+public class ScriptCheckpoint {
+    private String name;
+    private int statementNo;
+    private String statementHash;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Number of the completed statements, 0 if the script failed on the first one
+     */
+    public int getStatementNo() {
+        return statementNo;
+    }
+
+    public void setStatementNo(int statementNo) {
+        this.statementNo = statementNo;
+    }
+
+    /**
+     * Hash of all the completed statements, null if no statement was completed
+     */
+    public String getStatementHash() {
+        return statementHash;
+    }
+
+    public void setStatementHash(String statementHash) {
+        this.statementHash = statementHash;
+    }
+}
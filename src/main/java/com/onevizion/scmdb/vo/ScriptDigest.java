@@ -0,0 +1,60 @@
+package com.onevizion.scmdb.vo;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.nio.CharBuffer;
+
+/**
+ * Algorithms of the script file hash. Hash is used for change detection only, so the current algorithm is
+ * a fast non-cryptographic one. Algorithm is recorded as a prefix of the hash, hashes without the prefix
+ * are legacy SHA-1 ones. Both hash the text with CRLF line endings replaced by LF.
+ */
+public enum ScriptDigest {
+    SHA1("") {
+        @Override
+        protected String hashHex(String content) {
+            return DigestUtils.sha1Hex(content.replaceAll("\\r\\n", "\n"));
+        }
+    },
+    MURMUR3_128("m3:") {
+        @Override
+        protected String hashHex(String content) {
+            Hasher hasher = Hashing.murmur3_128().newHasher();
+            int start = 0;
+            int crlfIndex;
+            while ((crlfIndex = content.indexOf("\r\n", start)) >= 0) {
+                hasher.putUnencodedChars(CharBuffer.wrap(content, start, crlfIndex));
+                start = crlfIndex + 1;
+            }
+            hasher.putUnencodedChars(CharBuffer.wrap(content, start, content.length()));
+            return hasher.hash().toString();
+        }
+    };
+
+    public static final ScriptDigest CURRENT = MURMUR3_128;
+
+    private final String prefix;
+
+    ScriptDigest(String prefix) {
+        this.prefix = prefix;
+    }
+
+    protected abstract String hashHex(String content);
+
+    public String digest(String content) {
+        return prefix + hashHex(content);
+    }
+
+    public static ScriptDigest of(String fileHash) {
+        return fileHash != null && fileHash.startsWith(MURMUR3_128.prefix) ? MURMUR3_128 : SHA1;
+    }
+
+    /**
+     * Hash without the algorithm prefix
+     */
+    public static String getHex(String fileHash) {
+        return fileHash.substring(of(fileHash).prefix.length());
+    }
+}
@@ -0,0 +1,82 @@
+package com.onevizion.scmdb.vo;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Script description generated at build time for the scripts bundled in the jar
+ */
+public class ScriptManifestEntry {
+    private String name;
+    private String fileHash;
+    private long size;
+    private Date ts;
+    private SchemaType schemaType;
+    private ScriptType type;
+    private Integer orderNumber;
+    private List<DbObject> changedDbObjects;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getFileHash() {
+        return fileHash;
+    }
+
+    public void setFileHash(String fileHash) {
+        this.fileHash = fileHash;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public Date getTs() {
+        return ts;
+    }
+
+    public void setTs(Date ts) {
+        this.ts = ts;
+    }
+
+    public SchemaType getSchemaType() {
+        return schemaType;
+    }
+
+    public void setSchemaType(SchemaType schemaType) {
+        this.schemaType = schemaType;
+    }
+
+    public ScriptType getType() {
+        return type;
+    }
+
+    public void setType(ScriptType type) {
+        this.type = type;
+    }
+
+    public Integer getOrderNumber() {
+        return orderNumber;
+    }
+
+    public void setOrderNumber(Integer orderNumber) {
+        this.orderNumber = orderNumber;
+    }
+
+    public List<DbObject> getChangedDbObjects() {
+        return changedDbObjects;
+    }
+
+    public void setChangedDbObjects(List<DbObject> changedDbObjects) {
+        this.changedDbObjects = changedDbObjects;
+    }
+}
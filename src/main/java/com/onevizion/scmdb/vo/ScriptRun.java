@@ -0,0 +1,69 @@
+package com.onevizion.scmdb.vo;
+
+import java.util.Date;
+
+public class ScriptRun {
+    private Long id;
+    private Date startTs;
+    private Date endTs;
+    private String host;
+    private String mode;
+    private long compileMillis;
+    private Long ddlMillis;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Date getStartTs() {
+        return startTs;
+    }
+
+    public void setStartTs(Date startTs) {
+        this.startTs = startTs;
+    }
+
+    public Date getEndTs() {
+        return endTs;
+    }
+
+    public void setEndTs(Date endTs) {
+        this.endTs = endTs;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public void setHost(String host) {
+        this.host = host;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public long getCompileMillis() {
+        return compileMillis;
+    }
+
+    public void setCompileMillis(long compileMillis) {
+        this.compileMillis = compileMillis;
+    }
+
+    public Long getDdlMillis() {
+        return ddlMillis;
+    }
+
+    public void setDdlMillis(Long ddlMillis) {
+        this.ddlMillis = ddlMillis;
+    }
+}
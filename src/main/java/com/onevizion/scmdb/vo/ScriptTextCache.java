@@ -0,0 +1,73 @@
+package com.onevizion.scmdb.vo;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.onevizion.scmdb.AppArguments;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Size-bounded LRU cache of the script texts backed by resources. Evicted text is reloaded from the resource
+ * on the next access, so heap usage doesn't grow with the number of scripts in the repository.
+ */
+@Component
+public class ScriptTextCache {
+    public static final int DEFAULT_MAX_SIZE_MB = 64;
+
+    @Autowired
+    private AppArguments appArguments;
+
+    private volatile Cache<SqlScript, String> cache;
+
+    /**
+     * Cache is built on the first access, as its size is known only after the arguments are parsed
+     */
+    private Cache<SqlScript, String> getCache() {
+        Cache<SqlScript, String> result = cache;
+        if (result == null) {
+            synchronized (this) {
+                if (cache == null) {
+                    cache = build(appArguments.getMaxTextCacheMb());
+                }
+                result = cache;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Single segment: each segment gets its share of the max weight, with the default concurrency level
+     * the text larger than a quarter of the max size was evicted right after it was cached
+     */
+    private static Cache<SqlScript, String> build(int maxSizeMb) {
+        return CacheBuilder.newBuilder()
+                           .concurrencyLevel(1)
+                           .weakKeys()
+                           .maximumWeight(maxSizeMb * 1024L * 1024L)
+                           .weigher((SqlScript script, String text) -> text.length() * 2)
+                           .build();
+    }
+
+    String get(SqlScript script, Callable<String> loader) {
+        try {
+            return getCache().get(script, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Can't read file content [" + script.getName() + "]", e.getCause());
+        }
+    }
+
+    void put(SqlScript script, String text) {
+        getCache().put(script, text);
+    }
+
+    void invalidate(SqlScript script) {
+        getCache().invalidate(script);
+    }
+}
@@ -0,0 +1,148 @@
+package com.onevizion.scmdb.vo;
+
+/**
+ * State of the session executing a script: current wait, SQL and the long operation in progress, if any
+ */
+public class SessionProgress {
+    private static final String IDLE_WAIT_CLASS = "Idle";
+    private static final String WAITING_STATE = "WAITING";
+
+    private String state;
+    private String event;
+    private String waitClass;
+    private long waitSeconds;
+    private Integer blockingSession;
+    private String sqlId;
+    private String sqlText;
+    private String operation;
+    private String target;
+    private long sofar;
+    private long totalWork;
+    private String units;
+    private Long secondsRemaining;
+
+    /**
+     * Session is waiting on a non-idle event, e.g. a lock or I/O
+     */
+    public boolean isWaiting() {
+        return WAITING_STATE.equals(state) && !IDLE_WAIT_CLASS.equals(waitClass);
+    }
+
+    /**
+     * Long operation (full scan, sort, index build etc.) is in progress
+     */
+    public boolean isLongOperation() {
+        return operation != null && totalWork > 0;
+    }
+
+    public int getPercentDone() {
+        return (int) (sofar * 100 / totalWork);
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public String getEvent() {
+        return event;
+    }
+
+    public void setEvent(String event) {
+        this.event = event;
+    }
+
+    public String getWaitClass() {
+        return waitClass;
+    }
+
+    public void setWaitClass(String waitClass) {
+        this.waitClass = waitClass;
+    }
+
+    public long getWaitSeconds() {
+        return waitSeconds;
+    }
+
+    public void setWaitSeconds(long waitSeconds) {
+        this.waitSeconds = waitSeconds;
+    }
+
+    public Integer getBlockingSession() {
+        return blockingSession;
+    }
+
+    public void setBlockingSession(Integer blockingSession) {
+        this.blockingSession = blockingSession;
+    }
+
+    public String getSqlId() {
+        return sqlId;
+    }
+
+    public void setSqlId(String sqlId) {
+        this.sqlId = sqlId;
+    }
+
+    public String getSqlText() {
+        return sqlText;
+    }
+
+    public void setSqlText(String sqlText) {
+        this.sqlText = sqlText;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public long getSofar() {
+        return sofar;
+    }
+
+    public void setSofar(long sofar) {
+        this.sofar = sofar;
+    }
+
+    public long getTotalWork() {
+        return totalWork;
+    }
+
+    public void setTotalWork(long totalWork) {
+        this.totalWork = totalWork;
+    }
+
+    public String getUnits() {
+        return units;
+    }
+
+    public void setUnits(String units) {
+        this.units = units;
+    }
+
+    /**
+     * Estimate of the long operation, null if there is none
+     */
+    public Long getSecondsRemaining() {
+        return secondsRemaining;
+    }
+
+    public void setSecondsRemaining(Long secondsRemaining) {
+        this.secondsRemaining = secondsRemaining;
+    }
+}
@@ -1,6 +1,7 @@
 package com.onevizion.scmdb.vo;
 
-import org.apache.commons.codec.digest.DigestUtils;
+import com.onevizion.scmdb.exception.ScmdbException;
+import com.onevizion.scmdb.jfr.ScriptHashEvent;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.core.io.Resource;
@@ -9,6 +10,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.List;
 import java.util.Objects;
 
 import static java.util.Comparator.naturalOrder;
@@ -18,7 +20,14 @@ public class SqlScript implements Comparable<SqlScript> {
     private Long id;
     private String name;
     private String fileHash;
+    /**
+     * Text set explicitly (e.g. read from db_script). Text of the script backed by a resource is kept
+     * in {@link ScriptTextCache} and reloaded on demand, only its hash stays resident.
+     */
     private String text;
+    // without the cache text of the script backed by a resource is read on each access
+    private ScriptTextCache textCache;
+    private volatile boolean contentLoaded;
     private Date ts;
     private String output;
     private ScriptType type;
@@ -26,20 +35,30 @@ public class SqlScript implements Comparable<SqlScript> {
     private Resource resource;
     private SchemaType schemaType = SchemaType.OWNER;
     private Integer orderNumber;
+    private Long durationMillis;
+    private String manifestFileHash;
+    private List<DbObject> changedDbObjects;
 
     private static final String ROLLBACK_SUFFIX = "_rollback";
 
+    /**
+     * Max length of the output tail kept in db_script, the full output goes to db_script_output
+     */
+    public static final int INLINE_OUTPUT_MAX_LENGTH = 1000;
+
     private static final Comparator<SqlScript> ORDER_NUMBER_AND_NAME_COMPARATOR =
             Comparator.comparing(SqlScript::getOrderNumber, nullsFirst(naturalOrder()))
                       .thenComparing(SqlScript::getName);
 
     public static SqlScript create(Resource scriptResource) throws IOException {
-        return create(scriptResource, true);
+        return create(scriptResource, true, null);
     }
 
-    public static SqlScript create(Resource scriptResource, boolean readFileContent) throws IOException {
+    public static SqlScript create(Resource scriptResource, boolean readFileContent, ScriptTextCache textCache)
+            throws IOException {
         SqlScript script = new SqlScript();
 
+        script.textCache = textCache;
         script.resource = scriptResource;
         script.setName(scriptResource.getFilename());
         script.setTs(new Date(scriptResource.lastModified()));
@@ -59,15 +78,79 @@ public class SqlScript implements Comparable<SqlScript> {
         return script;
     }
 
+    /**
+     * Creates script from the build-time manifest entry. Content isn't read, it's verified against the manifest
+     * hash when loaded.
+     */
+    public static SqlScript create(ScriptManifestEntry entry, Resource scriptResource, ScriptTextCache textCache) {
+        SqlScript script = new SqlScript();
+
+        script.textCache = textCache;
+        script.resource = scriptResource;
+        script.name = entry.getName().intern();
+        script.orderNumber = entry.getOrderNumber();
+        script.setTs(entry.getTs());
+        script.setType(entry.getType());
+        script.setStatus(ScriptStatus.EXECUTED);
+        script.setSchemaType(entry.getSchemaType());
+        script.setFileHash(entry.getFileHash());
+        script.manifestFileHash = entry.getFileHash();
+        script.changedDbObjects = entry.getChangedDbObjects();
+
+        return script;
+    }
+
     public void loadContentFromFile() {
+        String content = readAndVerifyContent();
+        if (textCache != null) {
+            textCache.put(this, content);
+        }
+    }
+
+    public void ensureContentLoaded() {
+        if (resource != null && text == null && !contentLoaded) {
+            loadContentFromFile();
+        }
+    }
+
+    /**
+     * Reads content of the resource. On the first read the hash is computed and verified against the manifest,
+     * content read again after eviction from the cache must have the same hash.
+     */
+    private String readAndVerifyContent() {
         String fileContent;
         try {
             fileContent = resource.getContentAsString(StandardCharsets.UTF_8);
-            text = fileContent;
-            fileHash = DigestUtils.sha1Hex(fileContent.replaceAll("\\r\\n", "\n"));
         } catch (IOException e) {
             throw new RuntimeException("Can't read file content [" + name + "]", e);
         }
+        ScriptDigest digest = ScriptDigest.CURRENT;
+        if (contentLoaded) {
+            digest = ScriptDigest.of(fileHash);
+        } else if (manifestFileHash != null) {
+            digest = ScriptDigest.of(manifestFileHash);
+        }
+        ScriptHashEvent event = new ScriptHashEvent();
+        event.begin();
+        String contentHash = digest.digest(fileContent);
+        if (event.shouldCommit()) {
+            event.scriptName = name;
+            event.algorithm = digest.name();
+            event.textLength = fileContent.length();
+            event.commit();
+        }
+        if (contentLoaded) {
+            if (!contentHash.equals(fileHash)) {
+                throw new ScmdbException("Script [" + name + "] was changed during the run.");
+            }
+            return fileContent;
+        }
+        fileHash = contentHash;
+        if (manifestFileHash != null && !manifestFileHash.equals(fileHash)) {
+            throw new ScmdbException("Script [" + name + "] doesn't match the scripts manifest. Rebuild the jar.");
+        }
+        contentLoaded = true;
+        return fileContent;
     }
 
     public Long getId() {
@@ -83,7 +166,8 @@ public class SqlScript implements Comparable<SqlScript> {
     }
 
     public void setName(String name) {
-        this.name = name;
+        // names are kept both by the catalog and the journal map, interning shares them
+        this.name = name.intern();
         this.orderNumber = extractOrderNumber(name);
     }
 
@@ -93,6 +177,9 @@ public class SqlScript implements Comparable<SqlScript> {
 
     public void setResource(Resource resource) {
         this.resource = resource;
+        if (textCache != null) {
+            textCache.invalidate(this);
+        }
     }
 
     public String getFileHash() {
@@ -103,8 +190,22 @@ public class SqlScript implements Comparable<SqlScript> {
         this.fileHash = fileHash;
     }
 
+    /**
+     * Checks if the given hash, possibly computed by another {@link ScriptDigest}, is the hash of this script content
+     */
+    public boolean isContentHash(String otherFileHash) {
+        ScriptDigest otherDigest = ScriptDigest.of(otherFileHash);
+        if (otherDigest == ScriptDigest.of(fileHash)) {
+            return otherFileHash.equals(fileHash);
+        }
+        return otherDigest.digest(getText()).equals(otherFileHash);
+    }
+
     public String getText() {
-        return text;
+        if (text != null || resource == null) {
+            return text;
+        }
+        return textCache != null ? textCache.get(this, this::readAndVerifyContent) : readAndVerifyContent();
     }
 
     public void setText(String text) {
@@ -127,6 +228,13 @@ public class SqlScript implements Comparable<SqlScript> {
         this.output = output;
     }
 
+    public String getInlineOutput() {
+        if (output == null || output.length() <= INLINE_OUTPUT_MAX_LENGTH) {
+            return output;
+        }
+        return output.substring(output.length() - INLINE_OUTPUT_MAX_LENGTH);
+    }
+
     public ScriptType getType() {
         return type;
     }
@@ -164,10 +272,25 @@ public class SqlScript implements Comparable<SqlScript> {
         if (type == ScriptType.COMMIT) {
             return name;
         } else {
-            return name.replaceAll(ROLLBACK_SUFFIX, "");
+            return name.replace(ROLLBACK_SUFFIX, "");
         }
     }
 
+    public Long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(Long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Returns objects changed by the script if they are known from the manifest, otherwise null
+     */
+    public List<DbObject> getChangedDbObjects() {
+        return changedDbObjects;
+    }
+
     public Integer getOrderNumber() {
         return orderNumber;
     }
@@ -200,9 +323,10 @@ public class SqlScript implements Comparable<SqlScript> {
     }
 
     private static Integer extractOrderNumber(String scriptName) {
-        String[] parts = scriptName.split("_");
-        if (parts.length >= 1 && StringUtils.isNumeric(parts[0])) {
-            return Integer.valueOf(parts[0]);
+        int separatorIndex = scriptName.indexOf('_');
+        String firstPart = separatorIndex < 0 ? scriptName : scriptName.substring(0, separatorIndex);
+        if (StringUtils.isNumeric(firstPart)) {
+            return Integer.valueOf(firstPart);
         } else {
             //NULL for deprecated a dev scripts, change after removing dev scripts support.
             return null;
@@ -23,6 +23,14 @@ def _log(p_msg: str) -> None:
     print(p_msg, file=sys.stderr)
 
 
+# Events are printed to stdout as JSON lines as soon as they happen, the "result" event is the last one:
+#   {"event": "written", "path": "<absolute path>"}  script or DDL file was created or changed
+#   {"event": "deleted", "path": "<absolute path>"}  script or DDL file was deleted
+#   {"event": "result", "should_run_scmdb": ..., ...}
+def _emit(p_event: str, **p_fields: Any) -> None:
+    print(json.dumps({"event": p_event, **p_fields}, ensure_ascii=False), flush=True)
+
+
 # GitHub API
 
 def _gh_headers(p_token: str) -> dict[str, str]:
@@ -257,7 +265,21 @@ def _is_empty_cherry_pick(p_repo_root: str) -> bool:
     )
 
 
-def _cherry_pick_commits(p_repo_root: str, p_remote_branch_name: str, p_commit_ids: list[str]) -> None:
+def _emit_committed_files(p_layout: RepoLayout) -> None:
+    """
+    Emits files under <DB>/ changed by the HEAD commit.
+    """
+    out = _run_git(p_layout.repo_root, ["diff-tree", "--no-commit-id", "--no-renames", "--name-status", "-r", "HEAD"])
+    for line in out.splitlines():
+        status, _, filename = line.partition("\t")
+        if not filename.startswith(p_layout.db_rel_prefix):
+            continue
+        path = os.path.join(p_layout.repo_root, filename)
+        _emit("deleted" if status == "D" else "written", path=path)
+
+
+def _cherry_pick_commits(p_layout: RepoLayout, p_remote_branch_name: str, p_commit_ids: list[str]) -> None:
+    p_repo_root = p_layout.repo_root
     if not p_commit_ids:
         return
 
@@ -274,6 +296,7 @@ def _cherry_pick_commits(p_repo_root: str, p_remote_branch_name: str, p_commit_i
         for sha in p_commit_ids:
             try:
                 _run_git(p_repo_root, ["cherry-pick", sha])
+                _emit_committed_files(p_layout)
             except RuntimeError:
                 if not _is_empty_cherry_pick(p_repo_root):
                     raise
@@ -411,6 +434,7 @@ def _write_script(p_layout: RepoLayout, p_file_name: str, p_content: str) -> Non
     full_path = os.path.join(p_layout.scripts_abs, p_file_name)
     with open(full_path, "w", encoding="utf-8") as f:
         f.write(p_content)
+    _emit("written", path=full_path)
 
 
 # Main
@@ -418,7 +442,8 @@ def _write_script(p_layout: RepoLayout, p_file_name: str, p_content: str) -> Non
 def build_parser() -> argparse.ArgumentParser:
     p = argparse.ArgumentParser(
         prog="backport_pipeline",
-        description="Backport PR: cherry-pick commits and regenerate package scripts. SCMDB is not executed here.",
+        description="Backport PR: cherry-pick commits and regenerate package scripts. SCMDB is not executed here. "
+                    "Progress is reported to stdout as JSON lines events.",
     )
 
     p.add_argument("pr", type=int, help="Pull Request number to backport")
@@ -470,7 +495,7 @@ def main(argv: list[str] | None = None) -> int:
             msg = "Non-package DDL changes detected."
 
         if not files:
-            print(json.dumps(result, ensure_ascii=False))
+            _emit("result", **result)
             return 0
 
         commit_ids, skipped_commit_ids = _filter_commits(commits)
@@ -507,7 +532,7 @@ def main(argv: list[str] | None = None) -> int:
 
         # 4) Cherry-pick commits to current branch
         if commit_ids:
-            _cherry_pick_commits(layout.repo_root, branch, commit_ids)
+            _cherry_pick_commits(layout, branch, commit_ids)
 
         # 5) Write rollback scripts from memory (old package versions)
         for pkg, (out_name, out_text) in rollback_scripts_in_memory.items():
@@ -523,12 +548,12 @@ def main(argv: list[str] | None = None) -> int:
         # SCMDB decision: run if PR contains any scripts
         result["should_run_scmdb"] = (len(scripts_file_names) > 0) or ((result["scripts_written"] + result["rollback_scripts_written"]) > 0)
 
-        print(json.dumps(result, ensure_ascii=False))
+        _emit("result", **result)
         return 0
 
     except Exception as e:
         result["error"] = str(e)
-        print(json.dumps(result, ensure_ascii=False))
+        _emit("result", **result)
         return 1
 
 
@@ -0,0 +1,7 @@
+create table db_script_checkpoint(
+    name varchar(400) not null,
+    statement_no number not null,
+    statement_hash varchar2(400) null,
+    ts date default sysdate not null,
+    constraint pk_db_script_checkpoint primary key (name)
+);
@@ -0,0 +1,21 @@
+create table db_script_output(
+    db_script_output_id number not null,
+    db_script_id number null,
+    name varchar(400) not null,
+    run_ts date not null,
+    output clob null,
+    constraint pk_db_script_output primary key (db_script_output_id)
+);
+
+create index i1_db_script_output on db_script_output (run_ts);
+create index i2_db_script_output on db_script_output (name);
+create sequence seq_db_script_output_id;
+
+create or replace trigger tib_db_script_output before insert on db_script_output
+    for each row
+begin
+    if (:new.db_script_output_id is null) then
+        select seq_db_script_output_id.nextval into :new.db_script_output_id from dual;
+    end if;
+end;
+/
@@ -0,0 +1,43 @@
+create table db_script_run(
+    db_script_run_id number not null,
+    start_ts date not null,
+    end_ts date null,
+    host varchar2(400) null,
+    run_mode varchar2(100) not null,
+    compile_ms number null,
+    ddl_ms number null,
+    constraint pk_db_script_run primary key (db_script_run_id)
+);
+
+create table db_script_run_item(
+    db_script_run_item_id number not null,
+    db_script_run_id number not null,
+    name varchar(400) not null,
+    schema_type varchar2(30) not null,
+    duration_ms number not null,
+    status number not null,
+    constraint pk_db_script_run_item primary key (db_script_run_item_id),
+    constraint fk1_db_script_run_item foreign key (db_script_run_id) references db_script_run (db_script_run_id) on delete cascade
+);
+
+create index i1_db_script_run_item on db_script_run_item (db_script_run_id);
+create index i2_db_script_run_item on db_script_run_item (name);
+create sequence seq_db_script_run_id;
+
+create or replace trigger tib_db_script_run before insert on db_script_run
+    for each row
+begin
+    if (:new.db_script_run_id is null) then
+        select seq_db_script_run_id.nextval into :new.db_script_run_id from dual;
+    end if;
+end;
+/
+
+create or replace trigger tib_db_script_run_item before insert on db_script_run_item
+    for each row
+begin
+    if (:new.db_script_run_item_id is null) then
+        select seq_db_script_run_id.nextval into :new.db_script_run_item_id from dual;
+    end if;
+end;
+/
@@ -1,3 +0,0 @@
-set serveroutput on
-exec dbms_output.put_line('Enable DB Jobs');
-exec dbms_output.put_line(pkg_job_control.enable_jobs());
\ No newline at end of file
@@ -0,0 +1,10 @@
+-- Enabling of locked component modifications before regular scripts in the owner schema,
+-- executed with direct JDBC and included into compile_invalids_wrapper_*.sql
+begin
+    pkg_audit_comp.enable_locked_component_mods;
+exception
+    when others then
+        dbms_output.put_line('WARNING: Unable to enable locked component modifications.');
+        dbms_output.put_line('Please handle component updates manually in the script.');
+end;
+/
@@ -0,0 +1,288 @@
+package com.onevizion.scmdb;
+
+import com.onevizion.scmdb.SqlStatementSplitter.UnsupportedScriptException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.BatchUpdateException;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Rewriting of inserts into templates with bound literals and execution of the runs of inserts as batches
+ */
+class BatchableInsertTest {
+
+    @Test
+    void bindsLiteralsOfValuesAndFunctionArguments() throws Exception {
+        BatchableInsert insert = parse("insert into test (id, name, created, note)\n" +
+                "values (1, 'a', to_date('2024-01-31', 'yyyy-mm-dd'), null);");
+
+        assertEquals("insert into test (id, name, created, note) values (?, ?, to_date(?, ?), ?)",
+                     insert.getTemplate());
+        assertEquals(List.of(new BigDecimal("1"), "a", "2024-01-31", "yyyy-mm-dd", "null"), bind(insert));
+    }
+
+    @Test
+    void keepsNumericFunctionArgumentsInText() throws Exception {
+        BatchableInsert insert = parse("insert into test (amount, code) values (round(1.234, 2), cast('5' as varchar2(10)));");
+
+        assertEquals("insert into test (amount, code) values (round(1.234, 2), cast(? as varchar2(10)))",
+                     insert.getTemplate());
+        assertEquals(List.of("5"), bind(insert));
+    }
+
+    @Test
+    void keepsLiteralsOfNestedExpressionsInText() throws Exception {
+        BatchableInsert insert = parse("insert into test (name, code) values (('a' || 'b'), nvl(null, 'c'));");
+
+        assertEquals("insert into test (name, code) values (('a' || 'b'), nvl(?, ?))", insert.getTemplate());
+        assertEquals(List.of("null", "c"), bind(insert));
+    }
+
+    @Test
+    void unescapesQuotes() throws Exception {
+        BatchableInsert insert = parse("insert into test (name) values ('it''s ''quoted''');");
+
+        assertEquals("insert into test (name) values (?)", insert.getTemplate());
+        assertEquals(List.of("it's 'quoted'"), bind(insert));
+    }
+
+    @Test
+    void bindsExponentAndSignedNumbers() throws Exception {
+        BatchableInsert insert = parse("insert into test (a, b, c, d) values (1e3, -2.5E-2, +7, .5);");
+
+        assertEquals("insert into test (a, b, c, d) values (?, -?, +?, ?)", insert.getTemplate());
+        assertEquals(List.of(new BigDecimal("1e3"), new BigDecimal("2.5E-2"), new BigDecimal("7"),
+                             new BigDecimal(".5")), bind(insert));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // typed literals
+            "insert into test (created) values (date '2024-01-31');",
+            "insert into test (created) values (timestamp '2024-01-31 10:00:00');",
+            "insert into test (name) values (n'name');",
+            "insert into test (name) values (q'[it's]');",
+            "insert into test (amount) values (1.5f);",
+            // more than one row
+            "insert into test (id) values (1), (2);",
+            "insert all into test (id) values (1) into test (id) values (2) select * from dual;",
+            "insert into test (id) select 1 from dual;",
+            // subqueries in values
+            "insert into test (id, type_id) values (1, (select type_id from test_type where code = 'X'));",
+            // bind variables and comments
+            "insert into test (id) values (:id);",
+            "insert into test (id) values (?);",
+            "insert into test (id) values (1 /* one */);",
+            // nothing to bind
+            "insert into test (id) values (seq_test.nextval);",
+            // not an insert
+            "update test set id = 1;"
+    })
+    void rejectsStatementsWhichCantBeBatched(String sql) throws UnsupportedScriptException {
+        assertNull(BatchableInsert.parse(split(sql).get(0)));
+    }
+
+    @Test
+    void findsRunOfSameShapeInserts() throws UnsupportedScriptException {
+        List<SqlStatement> statements = split("""
+                insert into test (id, name) values (1, 'a');
+                insert into test (id, name) values (2, 'b');
+                insert into test (id, name) values (3, 'c''d');
+                insert into test (id, name) values (4, upper('e'));
+                insert into test (id, name) values (5, 'f');
+                """);
+
+        List<BatchableInsert> run = BatchableInsert.findRun(statements, 0);
+
+        assertEquals(3, run.size());
+        assertEquals(statements.get(2), run.get(2).getStatement());
+        assertEquals(1, BatchableInsert.findRun(statements, 3).size());
+    }
+
+    @Test
+    void executesRunAsBatch() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        JdbcScriptRunner runner = new JdbcScriptRunner(connection.proxy(), output, true);
+        List<SqlStatement> statements = split("""
+                insert into test (id, name) values (1, 'a');
+                insert into test (id, name) values (2, 'b');
+                insert into test (id, name) values (3, 'c');
+                """);
+
+        assertTrue(runner.run(statements, true));
+        assertEquals(List.of("insert into test (id, name) values (?, ?)"), connection.preparedSql);
+        assertEquals(3, connection.batchedRows);
+        assertTrue(connection.executedSql.isEmpty());
+        assertEquals(statements.get(2), runner.getLastCompleted());
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("3 rows inserted."));
+    }
+
+    @Test
+    void executesFailedBatchStatementByStatement() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        connection.failingValue = "bad";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        JdbcScriptRunner runner = new JdbcScriptRunner(connection.proxy(), output, true);
+        List<SqlStatement> statements = split("""
+                insert into test (id, name) values (1, 'a');
+                insert into test (id, name) values (2, 'bad');
+                insert into test (id, name) values (3, 'c');
+                """);
+
+        assertFalse(runner.run(statements, true));
+        assertEquals(1, connection.rollbacks);
+        assertEquals(List.of(statements.get(0).getSql(), statements.get(1).getSql()), connection.executedSql);
+        assertEquals(statements.get(0), runner.getLastCompleted());
+        assertTrue(runner.isErrorEncountered());
+        assertTrue(output.toString(StandardCharsets.UTF_8).contains("Error starting at line : 2 in command -"));
+    }
+
+    @Test
+    void continuesFailedBatchWhenErrorsAreIgnored() throws Exception {
+        FakeConnection connection = new FakeConnection();
+        connection.failingValue = "bad";
+        JdbcScriptRunner runner = new JdbcScriptRunner(connection.proxy(), new ByteArrayOutputStream(), false);
+        List<SqlStatement> statements = split("""
+                insert into test (id, name) values (1, 'a');
+                insert into test (id, name) values (2, 'bad');
+                insert into test (id, name) values (3, 'c');
+                """);
+
+        assertTrue(runner.run(statements, true));
+        assertEquals(3, connection.executedSql.size());
+        assertEquals(statements.get(2), runner.getLastCompleted());
+        assertTrue(runner.isErrorEncountered());
+    }
+
+    private static BatchableInsert parse(String sql) throws UnsupportedScriptException {
+        return BatchableInsert.parse(split(sql).get(0));
+    }
+
+    private static List<SqlStatement> split(String sql) throws UnsupportedScriptException {
+        return SqlStatementSplitter.split(sql);
+    }
+
+    /**
+     * Values bound by the insert, "null" for NULL
+     */
+    private static List<Object> bind(BatchableInsert insert) throws SQLException {
+        List<Object> values = new ArrayList<>();
+        insert.bind(fake(PreparedStatement.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "setString", "setBigDecimal" -> values.add(args[1]);
+                case "setNull" -> values.add("null");
+                default -> {
+                }
+            }
+            return null;
+        }));
+        return values;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T fake(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            Object result = handler.invoke(proxy, method, args);
+            if (result == null && method.getReturnType() == boolean.class) {
+                return false;
+            } else if (result == null && method.getReturnType() == int.class) {
+                return 0;
+            } else if (result == null && method.getReturnType() == int[].class) {
+                return new int[0];
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Connection executing the statements without the database: a batch or a statement containing
+     * the failing value fails
+     */
+    private static class FakeConnection {
+        private final List<String> preparedSql = new ArrayList<>();
+        private final List<String> executedSql = new ArrayList<>();
+        private String failingValue;
+        private int batchedRows;
+        private int rollbacks;
+
+        Connection proxy() {
+            return fake(Connection.class, (proxy, method, args) -> switch (method.getName()) {
+                case "prepareStatement" -> {
+                    preparedSql.add((String) args[0]);
+                    yield preparedStatement();
+                }
+                case "createStatement" -> statement();
+                case "prepareCall" -> fake(CallableStatement.class, (p, m, a) -> null);
+                case "setSavepoint" -> fake(Savepoint.class, (p, m, a) -> null);
+                case "rollback" -> {
+                    rollbacks++;
+                    yield null;
+                }
+                default -> null;
+            });
+        }
+
+        private PreparedStatement preparedStatement() {
+            List<Object> values = new ArrayList<>();
+            int[] rows = {0};
+            return fake(PreparedStatement.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "setString", "setBigDecimal" -> values.add(args[1]);
+                    case "addBatch" -> rows[0]++;
+                    case "clearBatch" -> {
+                        values.clear();
+                        rows[0] = 0;
+                    }
+                    case "executeBatch" -> {
+                        if (values.contains(failingValue)) {
+                            throw new BatchUpdateException("ORA-12899: value too large", new int[0]);
+                        }
+                        batchedRows += rows[0];
+                        values.clear();
+                        rows[0] = 0;
+                    }
+                    default -> {
+                    }
+                }
+                return null;
+            });
+        }
+
+        private Statement statement() {
+            return fake(Statement.class, (proxy, method, args) -> {
+                if (method.getName().equals("execute")) {
+                    String sql = (String) args[0];
+                    if (sql.startsWith("insert")) {
+                        executedSql.add(sql);
+                        if (failingValue != null && sql.contains("'" + failingValue + "'")) {
+                            throw new SQLException("ORA-12899: value too large");
+                        }
+                    }
+                } else if (method.getName().equals("getUpdateCount")) {
+                    return 1;
+                }
+                return null;
+            });
+        }
+    }
+}
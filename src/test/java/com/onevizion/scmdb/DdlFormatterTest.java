@@ -0,0 +1,53 @@
+package com.onevizion.scmdb;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Golden corpus of package and type DDL. Expected files were produced by the regex chain DdlFormatter replaced,
+ * so formatted DDL files must stay byte for byte the same.
+ */
+class DdlFormatterTest {
+    private static final String SCHEMA_NAME = "VQS_P01_EPM";
+
+    @ParameterizedTest
+    @ValueSource(strings = {"package_spec", "package_body", "type_spec", "type_body"})
+    void formatsSourceAsRegexChain(String name) throws IOException {
+        assertFormatted(SCHEMA_NAME, name);
+    }
+
+    /**
+     * The regex chain used the schema name as a regex, so "$" made it an end-of-input anchor and the schema prefix
+     * was kept. The prefix is removed now, as for any other schema name.
+     */
+    @Test
+    void removesPrefixOfSchemaWithDollar() throws IOException {
+        assertFormatted("APP$OWNER", "schema_with_dollar");
+    }
+
+    private static void assertFormatted(String schemaName, String name) throws IOException {
+        String input = read(name + ".input.sql");
+        String expected = read(name + ".expected.sql");
+        DdlFormatter formatter = new DdlFormatter(schemaName);
+
+        assertEquals(expected, formatter.formatSource(input));
+
+        StringBuilder streamed = new StringBuilder();
+        formatter.formatSource(new StringReader(input), streamed);
+        assertEquals(expected, streamed.toString());
+    }
+
+    private static String read(String fileName) throws IOException {
+        try (InputStream in = DdlFormatterTest.class.getResourceAsStream("/ddl-formatter/" + fileName)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.onevizion.scmdb;
+
+import com.onevizion.scmdb.vo.DbObject;
+import com.onevizion.scmdb.vo.DbObjectType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.onevizion.scmdb.vo.DbObjectType.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Golden corpus of table and view DDL. Expected files were produced by the regex chain of the table and view
+ * generation before it was reworked, so generated DDL files must stay byte for byte the same.
+ * Dependent objects are read from "name.type.N.sql" files in the order of N, as the dao returns them.
+ */
+class DdlGeneratorTest {
+    private static final DdlFormatter FORMATTER = new DdlFormatter("VQS_P01_EPM");
+
+    @Test
+    void formatsTableWithSortedConstraintsAndDependentObjects() throws IOException {
+        assertTableFormatted("table");
+    }
+
+    @Test
+    void formatsTableWithoutConstraintsAndDependentObjects() throws IOException {
+        assertTableFormatted("table_without_constraints");
+    }
+
+    @Test
+    void formatsViewWithComments() throws IOException {
+        String ddl = DdlGenerator.formatViewDdl(FORMATTER, read("view.input.sql"), readDependent("view", COMMENT));
+
+        assertEquals(read("view.expected.sql"), ddl);
+    }
+
+    private static void assertTableFormatted(String name) throws IOException {
+        String ddl = DdlGenerator.formatTableDdl(FORMATTER, read(name + ".input.sql"), readDependent(name, INDEX),
+                                                 readDependent(name, COMMENT), readDependent(name, SEQUENCE),
+                                                 readDependent(name, TRIGGER));
+
+        assertEquals(read(name + ".expected.sql"), ddl);
+    }
+
+    private static List<DbObject> readDependent(String name, DbObjectType type) throws IOException {
+        List<DbObject> dbObjects = new ArrayList<>();
+        String fileName;
+        while (exists(fileName = name + "." + type.name().toLowerCase() + "." + (dbObjects.size() + 1) + ".sql")) {
+            DbObject dbObject = new DbObject(name.toUpperCase(), type);
+            dbObject.setDdl(read(fileName));
+            dbObjects.add(dbObject);
+        }
+        return dbObjects;
+    }
+
+    private static boolean exists(String fileName) {
+        return DdlGeneratorTest.class.getResource("/ddl-formatter/" + fileName) != null;
+    }
+
+    private static String read(String fileName) throws IOException {
+        try (InputStream in = DdlGeneratorTest.class.getResourceAsStream("/ddl-formatter/" + fileName)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
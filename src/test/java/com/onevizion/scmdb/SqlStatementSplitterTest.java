@@ -0,0 +1,202 @@
+package com.onevizion.scmdb;
+
+import com.onevizion.scmdb.SqlStatementSplitter.UnsupportedScriptException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statements must be split as SQL*Plus splits them, anything the splitter can't split the same way must be rejected,
+ * so the script falls back to SQLcl.
+ */
+class SqlStatementSplitterTest {
+
+    @Test
+    void splitsPackageSpecAndBodyEndingWithSlash() throws UnsupportedScriptException {
+        List<SqlStatement> statements = SqlStatementSplitter.split("""
+                create or replace package pkg_test is
+                  procedure run;
+                end pkg_test;
+                /
+
+                create or replace package body pkg_test is
+                  procedure run is
+                  begin
+                    null;
+                  end run;
+                end pkg_test;
+                /
+                """);
+
+        assertEquals(2, statements.size());
+        assertStatement(statements.get(0), 1, true, """
+                create or replace package pkg_test is
+                  procedure run;
+                end pkg_test;""");
+        assertStatement(statements.get(1), 6, true, """
+                create or replace package body pkg_test is
+                  procedure run is
+                  begin
+                    null;
+                  end run;
+                end pkg_test;""");
+        assertEquals("Package compiled", statements.get(0).getFeedback(0));
+        assertEquals("Package body compiled", statements.get(1).getFeedback(0));
+    }
+
+    @Test
+    void splitsTypeTriggerAndJavaUnits() throws UnsupportedScriptException {
+        List<SqlStatement> statements = SqlStatementSplitter.split("""
+                create or replace type t_id_list as table of number;
+                /
+                create or replace editionable trigger trg_test_bi
+                before insert on test for each row
+                begin
+                  :new.test_id := seq_test_id.nextval;
+                end;
+                /
+                create or replace and compile java source named "Hello" as
+                public class Hello {
+                    public static String hello() { return "hello;"; }
+                }
+                /
+                """);
+
+        assertEquals(3, statements.size());
+        assertStatement(statements.get(0), 1, true, "create or replace type t_id_list as table of number;");
+        assertStatement(statements.get(1), 3, true, """
+                create or replace editionable trigger trg_test_bi
+                before insert on test for each row
+                begin
+                  :new.test_id := seq_test_id.nextval;
+                end;""");
+        assertStatement(statements.get(2), 9, true, """
+                create or replace and compile java source named "Hello" as
+                public class Hello {
+                    public static String hello() { return "hello;"; }
+                }""");
+        assertEquals("Trigger compiled", statements.get(1).getFeedback(0));
+    }
+
+    @Test
+    void splitsAnonymousBlockAndSqlEndingWithSlash() throws UnsupportedScriptException {
+        List<SqlStatement> statements = SqlStatementSplitter.split("""
+                declare
+                  v_cnt number;
+                begin
+                  select count(*) into v_cnt from test;
+                end;
+                /
+                update test
+                   set name = 'a'
+                /
+                """);
+
+        assertEquals(2, statements.size());
+        assertStatement(statements.get(0), 1, true, """
+                declare
+                  v_cnt number;
+                begin
+                  select count(*) into v_cnt from test;
+                end;""");
+        assertStatement(statements.get(1), 7, false, "update test\n   set name = 'a'");
+        assertEquals("PL/SQL procedure successfully completed.", statements.get(0).getFeedback(0));
+        assertEquals("2 rows updated.", statements.get(1).getFeedback(2));
+    }
+
+    @Test
+    void ignoresSemicolonsInQuotes() throws UnsupportedScriptException {
+        List<SqlStatement> statements = SqlStatementSplitter.split("""
+                insert into test (a, b, c, d, e) values ('a;b', 'it''s;', q'[c;]'']', nq'{d;}', N'e;');
+                select "odd;name" from test;
+                insert into test (a) values (q'!multi; line
+                on two lines!');
+                """);
+
+        assertEquals(3, statements.size());
+        assertStatement(statements.get(0), 1, false,
+                        "insert into test (a, b, c, d, e) values ('a;b', 'it''s;', q'[c;]'']', nq'{d;}', N'e;')");
+        assertStatement(statements.get(1), 2, false, "select \"odd;name\" from test");
+        assertStatement(statements.get(2), 3, false, "insert into test (a) values (q'!multi; line\non two lines!')");
+    }
+
+    @Test
+    void ignoresSemicolonsInCommentsAndSkipsLeadingComments() throws UnsupportedScriptException {
+        List<SqlStatement> statements = SqlStatementSplitter.split("""
+                -- header comment;
+                /* block comment;
+                   on two lines; */
+                select 1 /* inline; */ from dual;
+                select 2 -- trailing comment; not a terminator
+                  from dual;
+                """);
+
+        assertEquals(2, statements.size());
+        assertStatement(statements.get(0), 4, false, "select 1 /* inline; */ from dual");
+        assertStatement(statements.get(1), 5, false, """
+                select 2 -- trailing comment; not a terminator
+                  from dual""");
+    }
+
+    @Test
+    void splitsCrlfText() throws UnsupportedScriptException {
+        List<SqlStatement> statements = SqlStatementSplitter.split(
+                "select 1 from dual;\r\nbegin\r\n  null;\r\nend;\r\n/\r\n");
+
+        assertEquals(2, statements.size());
+        assertStatement(statements.get(0), 1, false, "select 1 from dual");
+        assertStatement(statements.get(1), 2, true, "begin\n  null;\nend;");
+    }
+
+    @Test
+    void returnsNoStatementsForComments() throws UnsupportedScriptException {
+        assertTrue(SqlStatementSplitter.split("-- nothing to do\n\n/* really */\n").isEmpty());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // "/" inside a block comment
+            "select 1 from dual\n/*\n/\n*/\n;\n",
+            // "/" re-running the previous statement
+            "select 1 from dual;\n/\n",
+            // SQL*Plus treats the line as terminated by ";" and the comment as the next command
+            "select 1 from dual; -- comment\n",
+            // SQL*Plus terminates the statement by ";" at the end of the comment line
+            "select 1\n-- comment;\nfrom dual;\n",
+            // and by ";" at the end of the line inside a multi-line quote
+            "insert into test (a) values ('a;\nb');\n",
+            // PL/SQL declarations in WITH
+            "with function f return number is\nbegin\n  return 1;\nend;\nselect f from dual\n/\n",
+            // substitution variables
+            "insert into test (a) values ('&value');\n",
+            // SQL*Plus commands
+            "set define off\nselect 1 from dual;\n",
+            "prompt Creating table\ncreate table test (a number);\n",
+            "exec pkg_test.run;\n",
+            "@other_script.sql\n",
+            // PL/SQL block ended with "."
+            "begin\n  null;\nend;\n.\n",
+            // unterminated statements
+            "select 1 from dual\n",
+            "begin\n  null;\nend;\n",
+            "create or replace package pkg_test is\nend;\n",
+            // unclosed quote and comment
+            "select 'a from dual;\n",
+            "select 1 from dual; /* comment\n"
+    })
+    void rejectsScriptsForSqlcl(String text) {
+        assertThrows(UnsupportedScriptException.class, () -> SqlStatementSplitter.split(text));
+    }
+
+    private static void assertStatement(SqlStatement statement, int lineNumber, boolean plsql, String sql) {
+        assertEquals(sql, statement.getSql());
+        assertEquals(lineNumber, statement.getLineNumber());
+        assertEquals(plsql, statement.isPlsql());
+    }
+}
@@ -0,0 +1,21 @@
+CREATE OR REPLACE PACKAGE BODY PKG_ORDER AS
+
+  function get_status(p_order_id in number) return varchar2 is
+    v_status varchar2(10);
+  begin
+    select decode(o.status, 1, 'NEW', 2, '"DONE"', 'N/A') into v_status
+      from ORDERS o
+     where o.order_id = p_order_id;
+    -- values of "CASE" column are quoted back: ("CASE") and "CASE",
+    select count(*) into v_cnt from CASES where ("CASE") = 1 or "CASE", 2;
+    return v_status; /* ratio 10/2 */
+  end get_status;
+
+  procedure set_status(p_order_id in number, p_status in varchar2 default null) is
+  begin
+    update ORDERS set status = p_status where order_id = p_order_id;
+    PKG_LOG.info('status of ' || p_order_id || ' set to "' || p_status || '"');
+  end set_status;
+
+end pkg_order;
+/
\ No newline at end of file
@@ -0,0 +1,12 @@
+CREATE OR REPLACE PACKAGE PKG_ORDER 
+AUTHID DEFINER
+AS
+  -- "Order" helpers, see "PKG_ITEM"
+  c_status_new constant varchar2(10) := '"NEW"';
+  /* "block" comment with a quote ' inside */
+  type t_ids is table of ORDERS.ORDER_ID%type;
+
+  function get_status(p_order_id in number) return varchar2;
+  procedure set_status(p_order_id in number, p_status in varchar2 default 'it''s "x"');
+end pkg_order;
+/
\ No newline at end of file
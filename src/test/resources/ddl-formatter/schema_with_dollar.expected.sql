@@ -0,0 +1,4 @@
+CREATE OR REPLACE PACKAGE PKG_DOLLAR AS
+  procedure run;
+end pkg_dollar;
+/
\ No newline at end of file
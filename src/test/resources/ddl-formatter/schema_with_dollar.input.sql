@@ -0,0 +1,4 @@
+CREATE OR REPLACE EDITIONABLE PACKAGE "APP$OWNER"."PKG_DOLLAR" AS
+  procedure run;
+end pkg_dollar;
+/
@@ -0,0 +1,13 @@
+
+   COMMENT ON COLUMN "VQS_P01_EPM"."TEST_ITEM"."ITEM_NAME" IS 'Name of the "item"';
+ 
+   COMMENT ON COLUMN "VQS_P01_EPM"."TEST_ITEM"."ATTR_10" IS 'Tenth
+attribute';
+ 
+   COMMENT ON COLUMN "VQS_P01_EPM"."TEST_ITEM"."ATTR_2" IS 'Second attribute';
+ 
+   COMMENT ON COLUMN "VQS_P01_EPM"."TEST_ITEM"."ATTR_1" IS 'First attribute';
+ 
+   COMMENT ON COLUMN "VQS_P01_EPM"."TEST_ITEM"."CASE" IS 'Case of the item';
+ 
+   COMMENT ON TABLE "VQS_P01_EPM"."TEST_ITEM"  IS 'Test items';
@@ -0,0 +1,49 @@
+CREATE TABLE TEST_ITEM (
+    TEST_ITEM_ID NUMBER NOT NULL ENABLE, 
+    ITEM_NAME VARCHAR2(100 CHAR) NOT NULL ENABLE, 
+    CASE VARCHAR2(30), 
+    PARENT_ID NUMBER, 
+    TYPE_ID NUMBER, 
+    ATTR_1 VARCHAR2(50), 
+    ATTR_2 VARCHAR2(50), 
+    ATTR_10 VARCHAR2(50), 
+    STATUS NUMBER(1,0) DEFAULT 0 NOT NULL ENABLE, 
+     CONSTRAINT PK_TEST_ITEM PRIMARY KEY (TEST_ITEM_ID),
+     CONSTRAINT CK_TEST_ITEM_STATUS CHECK (status in (0, 1)) ENABLE,
+     CONSTRAINT FK_TEST_ITEM_1 FOREIGN KEY (ATTR_1) REFERENCES TEST_ATTR (ATTR_CODE) ENABLE,
+     CONSTRAINT FK_TEST_ITEM_2 FOREIGN KEY (PARENT_ID) REFERENCES TEST_ITEM (TEST_ITEM_ID) ON DELETE CASCADE ENABLE,
+     CONSTRAINT FK_TEST_ITEM_10 FOREIGN KEY (TYPE_ID) REFERENCES TEST_TYPE (TYPE_ID) ENABLE,
+     CONSTRAINT UQ_TEST_ITEM UNIQUE (ITEM_NAME)
+);
+
+CREATE UNIQUE INDEX UQ_TEST_ITEM ON TEST_ITEM (ITEM_NAME) 
+  ;
+CREATE INDEX IDX_TEST_ITEM_PARENT_ID ON TEST_ITEM (PARENT_ID, CASE) COMPRESS 1
+  ;
+
+COMMENT ON TABLE TEST_ITEM  IS 'Test items';
+COMMENT ON COLUMN TEST_ITEM.ATTR_1 IS 'First attribute';
+COMMENT ON COLUMN TEST_ITEM.ATTR_2 IS 'Second attribute';
+COMMENT ON COLUMN TEST_ITEM.ATTR_10 IS 'Tenthattribute';
+COMMENT ON COLUMN TEST_ITEM.CASE IS 'Case of the item';
+COMMENT ON COLUMN TEST_ITEM.ITEM_NAME IS 'Name of the "item"';
+
+CREATE SEQUENCE  SEQ_TEST_ITEM_ID;
+
+CREATE OR REPLACE TRIGGER TRG_TEST_ITEM_BI 
+before insert on test_item for each row
+begin
+  -- "id" is taken from the sequence
+  if :new.test_item_id is null then
+    :new.test_item_id := seq_test_item_id.nextval;
+  end if;
+end;
+/
+
+CREATE OR REPLACE TRIGGER TRG_TEST_ITEM_BU 
+before update of status on test_item for each row
+begin
+  :new.item_name := case when :new.status = 0 then '"' || :old.item_name || '"' else :new.item_name end;
+end;
+/
+ALTER TRIGGER TRG_TEST_ITEM_BU DISABLE;
\ No newline at end of file
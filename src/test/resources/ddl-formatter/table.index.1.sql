@@ -0,0 +1,3 @@
+
+  CREATE UNIQUE INDEX "VQS_P01_EPM"."UQ_TEST_ITEM" ON "VQS_P01_EPM"."TEST_ITEM" ("ITEM_NAME") 
+  ;
@@ -0,0 +1,3 @@
+
+  CREATE INDEX "VQS_P01_EPM"."IDX_TEST_ITEM_PARENT_ID" ON "VQS_P01_EPM"."TEST_ITEM" ("PARENT_ID", "CASE") COMPRESS 1
+  ;
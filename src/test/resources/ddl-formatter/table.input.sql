@@ -0,0 +1,23 @@
+
+  CREATE TABLE "VQS_P01_EPM"."TEST_ITEM" 
+   (	"TEST_ITEM_ID" NUMBER NOT NULL ENABLE, 
+	"ITEM_NAME" VARCHAR2(100 CHAR) NOT NULL ENABLE, 
+	"CASE" VARCHAR2(30), 
+	"PARENT_ID" NUMBER, 
+	"TYPE_ID" NUMBER, 
+	"ATTR_1" VARCHAR2(50), 
+	"ATTR_2" VARCHAR2(50), 
+	"ATTR_10" VARCHAR2(50), 
+	"STATUS" NUMBER(1,0) DEFAULT 0 NOT NULL ENABLE, 
+	 CONSTRAINT "UQ_TEST_ITEM" UNIQUE ("ITEM_NAME")
+  USING INDEX  ENABLE, 
+	 CONSTRAINT "FK_TEST_ITEM_10" FOREIGN KEY ("TYPE_ID")
+	  REFERENCES "VQS_P01_EPM"."TEST_TYPE" ("TYPE_ID") ENABLE, 
+	 CONSTRAINT "PK_TEST_ITEM" PRIMARY KEY ("TEST_ITEM_ID")
+  USING INDEX  ENABLE, 
+	 CONSTRAINT "CK_TEST_ITEM_STATUS" CHECK (status in (0, 1)) ENABLE, 
+	 CONSTRAINT "FK_TEST_ITEM_2" FOREIGN KEY ("PARENT_ID")
+	  REFERENCES "VQS_P01_EPM"."TEST_ITEM" ("TEST_ITEM_ID") ON DELETE CASCADE ENABLE, 
+	 CONSTRAINT "FK_TEST_ITEM_1" FOREIGN KEY ("ATTR_1")
+	  REFERENCES "VQS_P01_EPM"."TEST_ATTR" ("ATTR_CODE") ENABLE
+   ) ;
@@ -0,0 +1,2 @@
+
+   CREATE SEQUENCE  "VQS_P01_EPM"."SEQ_TEST_ITEM_ID"  MINVALUE 1 MAXVALUE 9999999999999999999999999999 INCREMENT BY 1 START WITH 1001 CACHE 20 NOORDER  NOCYCLE  NOKEEP  NOSCALE  GLOBAL ;
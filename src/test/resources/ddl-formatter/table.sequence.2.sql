@@ -0,0 +1,2 @@
+
+   CREATE SEQUENCE  "VQS_P01_EPM"."SEQ_BPD_ITEMS_UNIT_ID"  MINVALUE 1 MAXVALUE 9999999999999999999999999999 INCREMENT BY 1 START WITH 1 CACHE 20 NOORDER  NOCYCLE  NOKEEP  NOSCALE  GLOBAL ;
@@ -0,0 +1,11 @@
+
+  CREATE OR REPLACE EDITIONABLE TRIGGER "VQS_P01_EPM"."TRG_TEST_ITEM_BI" 
+before insert on test_item for each row
+begin
+  -- "id" is taken from the sequence
+  if :new.test_item_id is null then
+    :new.test_item_id := seq_test_item_id.nextval;
+  end if;
+end;
+/
+ALTER TRIGGER "VQS_P01_EPM"."TRG_TEST_ITEM_BI" ENABLE;
@@ -0,0 +1,8 @@
+
+  CREATE OR REPLACE NONEDITIONABLE TRIGGER "VQS_P01_EPM"."TRG_TEST_ITEM_BU" 
+before update of status on test_item for each row
+begin
+  :new.item_name := case when :new.status = 0 then '"' || :old.item_name || '"' else :new.item_name end;
+end;
+  /
+ALTER TRIGGER "VQS_P01_EPM"."TRG_TEST_ITEM_BU" DISABLE;
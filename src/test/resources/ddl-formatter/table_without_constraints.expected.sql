@@ -0,0 +1,4 @@
+CREATE GLOBAL TEMPORARY TABLE TMP_TEST_ID (
+    ID NUMBER, 
+    CASE NUMBER
+) ON COMMIT DELETE ROWS;
\ No newline at end of file
@@ -0,0 +1,5 @@
+
+  CREATE GLOBAL TEMPORARY TABLE "VQS_P01_EPM"."TMP_TEST_ID" 
+   (	"ID" NUMBER, 
+	"CASE" NUMBER
+   ) ON COMMIT DELETE ROWS ;
@@ -0,0 +1,6 @@
+CREATE OR REPLACE TYPE BODY T_ORDER_ROW AS
+  member function get_label return varchar2 is
+  begin
+    return '#' || order_id || ' "' || COMMENT || '"'; -- "label"
+  end;
+end;
\ No newline at end of file
@@ -0,0 +1,6 @@
+CREATE OR REPLACE TYPE T_ORDER_ROW FORCE AS OBJECT (
+  order_id number,
+  COMMENT varchar2(4000),
+  member function get_label return varchar2
+) NOT FINAL
+/
\ No newline at end of file
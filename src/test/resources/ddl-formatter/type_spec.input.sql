@@ -0,0 +1,8 @@
+
+CREATE OR REPLACE EDITIONABLE TYPE "VQS_P01_EPM"."T_ORDER_ROW" FORCE AS OBJECT (
+  order_id number,
+  "COMMENT" varchar2(4000),
+  member function get_label return varchar2
+) NOT FINAL
+	/
+
@@ -0,0 +1,6 @@
+
+   COMMENT ON COLUMN "VQS_P01_EPM"."V_TEST_ITEM"."ITEM_NAME" IS 'Item name';
+ 
+   COMMENT ON COLUMN "VQS_P01_EPM"."V_TEST_ITEM"."CASE" IS 'Item case';
+ 
+   COMMENT ON TABLE "VQS_P01_EPM"."V_TEST_ITEM"  IS 'Active items';
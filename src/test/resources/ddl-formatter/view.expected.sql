@@ -0,0 +1,11 @@
+CREATE OR REPLACE FORCE VIEW V_TEST_ITEM (TEST_ITEM_ID, ITEM_NAME, CASE) AS 
+  select i.test_item_id,
+       i.item_name,
+       i.CASE
+  from test_item i
+ where i.status = 1 -- "active" items
+   and i.item_name <> 'it''s "quoted"';
+
+COMMENT ON COLUMN V_TEST_ITEM.ITEM_NAME IS 'Item name';
+COMMENT ON COLUMN V_TEST_ITEM.CASE IS 'Item case';
+COMMENT ON TABLE V_TEST_ITEM  IS 'Active items';
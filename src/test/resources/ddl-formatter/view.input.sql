@@ -0,0 +1,9 @@
+
+  CREATE OR REPLACE FORCE EDITIONABLE VIEW "VQS_P01_EPM"."V_TEST_ITEM" ("TEST_ITEM_ID", "ITEM_NAME", "CASE") AS 
+  select i.test_item_id,
+       i.item_name,
+       i."CASE"
+  from test_item i
+ where i.status = 1 -- "active" items
+   and i.item_name <> 'it''s "quoted"'
+  ;